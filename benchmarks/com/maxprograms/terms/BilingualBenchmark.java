@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the bilingual stages that follow the extraction of source and
+ * target terms, and a complete bilingual extraction for reference.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BilingualBenchmark {
+
+    private static final long SEED = 42;
+
+    @Param({ "1000", "10000" })
+    public int segments;
+
+    @Param({ "en-es", "de-fr" })
+    public String languages;
+
+    private File xliff;
+    private File output;
+    private BilingualExtraction extraction;
+    private TermExtractor sourceExtractor;
+    private TermExtractor targetExtractor;
+    private Map<String, SegmentSet> sourceTermSegments;
+    private Map<String, SegmentSet> targetTermSegments;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String srcLang = languages.substring(0, languages.indexOf('-'));
+        String trgLang = languages.substring(languages.indexOf('-') + 1);
+        List<Segment> corpus = new SyntheticCorpus(SEED).segments(segments, new SyntheticCorpus.Lexicon(srcLang),
+                new SyntheticCorpus.Lexicon(trgLang));
+        xliff = File.createTempFile("corpus", ".xlf");
+        output = File.createTempFile("pairs", ".csv");
+        SyntheticCorpus.write(xliff, srcLang, trgLang, corpus);
+
+        List<Segment> sourceSegments = new ArrayList<>();
+        List<Segment> targetSegments = new ArrayList<>();
+        for (Segment segment : corpus) {
+            sourceSegments.add(new Segment(segment.number(), segment.state(), segment.source(), null));
+            targetSegments.add(new Segment(segment.number(), segment.state(), segment.target(), null));
+        }
+        ExtractionOptions options = new ExtractionOptions();
+        extraction = new BilingualExtraction();
+        sourceExtractor = new TermExtractor(srcLang, sourceSegments.iterator(), options);
+        targetExtractor = new TermExtractor(trgLang, targetSegments.iterator(), options);
+        sourceTermSegments = extraction.buildTermSegmentMapFromSentences(sourceExtractor.getTerms(),
+                sourceExtractor.getSentenceToSegmentMap());
+        targetTermSegments = extraction.buildTermSegmentMapFromSentences(targetExtractor.getTerms(),
+                targetExtractor.getSentenceToSegmentMap());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(xliff.toPath());
+        Files.deleteIfExists(output.toPath());
+    }
+
+    @Benchmark
+    public Object termSegmentMap() throws IOException {
+        return extraction.buildTermSegmentMapFromSentences(sourceExtractor.getTerms(),
+                sourceExtractor.getSentenceToSegmentMap());
+    }
+
+    @Benchmark
+    public Object generatePairs() throws IOException {
+        return extraction.generatePairs(sourceExtractor.getTerms(), targetExtractor.getTerms(), sourceTermSegments,
+                targetTermSegments);
+    }
+
+    @Benchmark
+    public long extract() throws IOException {
+        extraction.extract(xliff.getAbsolutePath(), output.getAbsolutePath(), 3, 10.0, 5, 1, 0, 0.7);
+        return output.length();
+    }
+}
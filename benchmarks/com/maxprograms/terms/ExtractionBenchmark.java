@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures each stage of a monolingual extraction separately. Every stage runs
+ * on the output of the previous ones, prepared once per trial, except
+ * candidate generation, which changes the term list and is prepared again
+ * before each invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExtractionBenchmark {
+
+    private static final long SEED = 42;
+
+    @Param({ "1000", "10000" })
+    public int segments;
+
+    @Param({ "en", "es", "de" })
+    public String language;
+
+    private File xliff;
+    private List<Segment> corpus;
+    private Locale locale;
+    private Set<String> stopWords;
+    private ExtractionOptions options;
+    private List<String> sentences;
+    private List<String[]> chunks;
+    private TermExtractor scored;
+    private List<Term> candidates;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        corpus = new SyntheticCorpus(SEED).segments(segments, new SyntheticCorpus.Lexicon(language),
+                new SyntheticCorpus.Lexicon(language));
+        xliff = File.createTempFile("corpus", ".xlf");
+        SyntheticCorpus.write(xliff, language, language, corpus);
+        locale = Locale.forLanguageTag(language);
+        stopWords = StopWords.getStopWords(language);
+        options = new ExtractionOptions();
+
+        sentences = new ArrayList<>();
+        BreakIterator iterator = BreakIterator.getSentenceInstance(locale);
+        for (Segment segment : corpus) {
+            TermExtractor.buildSentences(iterator, segment.number(), segment.source(), sentences,
+                    new ArrayList<>());
+        }
+        chunks = new ArrayList<>();
+        for (String sentence : sentences) {
+            chunks.add(TermExtractor.getChunks(sentence));
+        }
+
+        scored = TermExtractor.prepare(language, corpus.iterator(), options);
+        scored.preProcess();
+        scored.termStatistics();
+        scored.featureComputation();
+
+        TermExtractor extractor = TermExtractor.prepare(language, corpus.iterator(), options);
+        extractor.preProcess();
+        extractor.termStatistics();
+        extractor.featureComputation();
+        extractor.generateCandidates(options.getMaxTermLength(), options.getMinFrequency(),
+                options.getMaxScore(), options.isRelevant());
+        candidates = new ArrayList<>(extractor.getTerms());
+        extractor.shutdown();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        scored.shutdown();
+        Files.deleteIfExists(xliff.toPath());
+    }
+
+    /**
+     * An extractor ready for candidate generation.
+     */
+    @State(Scope.Thread)
+    public static class Candidates {
+
+        TermExtractor extractor;
+
+        @Setup(Level.Invocation)
+        public void setUp(ExtractionBenchmark benchmark) throws IOException {
+            extractor = TermExtractor.prepare(benchmark.language, benchmark.corpus.iterator(),
+                    benchmark.options);
+            extractor.preProcess();
+            extractor.termStatistics();
+            extractor.featureComputation();
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            extractor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public int parse() throws IOException {
+        int count = 0;
+        try (XliffReader reader = new XliffReader(xliff.getAbsolutePath())) {
+            while (reader.nextSegment() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public List<String> buildSentences() {
+        BreakIterator iterator = BreakIterator.getSentenceInstance(locale);
+        List<String> result = new ArrayList<>();
+        List<Integer> numbers = new ArrayList<>();
+        for (Segment segment : corpus) {
+            TermExtractor.buildSentences(iterator, segment.number(), segment.source(), result, numbers);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public void preProcess(Blackhole blackhole) {
+        for (String sentence : sentences) {
+            blackhole.consume(TermExtractor.getChunks(sentence));
+        }
+    }
+
+    @Benchmark
+    public List<Term> termStatistics() throws IOException {
+        TermStatistics statistics = new TermStatistics(locale, stopWords, options.isCacheTokens());
+        statistics.collect(chunks, 0, chunks.size());
+        return statistics.getTerms();
+    }
+
+    @Benchmark
+    public List<Term> featureComputation() {
+        scored.featureComputation();
+        return scored.getTerms();
+    }
+
+    @Benchmark
+    public List<Term> generateCandidates(Candidates state) {
+        state.extractor.generateCandidates(options.getMaxTermLength(), options.getMinFrequency(),
+                options.getMaxScore(), options.isRelevant());
+        return state.extractor.getTerms();
+    }
+
+    @Benchmark
+    public List<Term> deduplicateTerms() {
+        return TermExtractor.deduplicate(candidates, locale);
+    }
+
+    @Benchmark
+    public List<Term> extractTerms() throws IOException {
+        return new TermExtractor(xliff.getAbsolutePath(), options).getTerms();
+    }
+}
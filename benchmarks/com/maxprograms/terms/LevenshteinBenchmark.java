@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the full matrix edit distance with the bounded kernel used for
+ * fuzzy deduplication, on pairs of terms of one to three words where half of
+ * the pairs differ by a few typos and half are unrelated terms.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LevenshteinBenchmark {
+
+    private static final int PAIRS = 20000;
+    private static final int MAX_EDITS = 2;
+
+    private String[][] pairs;
+
+    @Setup
+    public void setUp() {
+        pairs = createPairs(new Random(42));
+        for (int i = 0; i < pairs.length; i++) {
+            int exact = LevenshteinDistance.distance(pairs[i][0], pairs[i][1]);
+            int bounded = LevenshteinDistance.distanceWithin(pairs[i][0], pairs[i][1], MAX_EDITS);
+            if (bounded != Math.min(exact, MAX_EDITS + 1)) {
+                throw new IllegalStateException(pairs[i][0] + " / " + pairs[i][1]);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public int distance() {
+        int sum = 0;
+        for (String[] pair : pairs) {
+            sum += LevenshteinDistance.distance(pair[0], pair[1]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public int distanceWithin() {
+        int sum = 0;
+        for (String[] pair : pairs) {
+            sum += LevenshteinDistance.distanceWithin(pair[0], pair[1], MAX_EDITS);
+        }
+        return sum;
+    }
+
+    private static String[][] createPairs(Random random) {
+        String[][] pairs = new String[PAIRS][2];
+        for (int i = 0; i < PAIRS; i++) {
+            String term = createTerm(random);
+            pairs[i][0] = term;
+            pairs[i][1] = i % 2 == 0 ? addTypos(term, 1 + random.nextInt(3), random) : createTerm(random);
+        }
+        return pairs;
+    }
+
+    private static String createTerm(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int words = 1 + random.nextInt(3);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                sb.append(' ');
+            }
+            int length = 4 + random.nextInt(7);
+            for (int c = 0; c < length; c++) {
+                sb.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String addTypos(String term, int count, Random random) {
+        StringBuilder sb = new StringBuilder(term);
+        for (int i = 0; i < count; i++) {
+            int position = random.nextInt(sb.length());
+            char c = (char) ('a' + random.nextInt(26));
+            switch (random.nextInt(3)) {
+                case 0 -> sb.setCharAt(position, c);
+                case 1 -> sb.insert(position, c);
+                default -> {
+                    if (sb.length() > 1) {
+                        sb.deleteCharAt(position);
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Generates parallel corpora for the benchmarks. The same seed always produces
+ * the same segments, so results of different runs can be compared.
+ * <p>
+ * Sentences are built as sequences of abstract tokens and then written in each
+ * language with its own lexicon: content words are invented from syllables and
+ * follow a Zipf distribution, function words are the stop words of the
+ * language and a fixed set of multi-word phrases recurs across the corpus, so
+ * every stage of the extraction has realistic work to do. Source and target
+ * share the token sequence, which makes their terms co-occur in the same
+ * segments.
+ */
+public class SyntheticCorpus {
+
+    private static final String NAMESPACE = "urn:oasis:names:tc:xliff:document:2.0";
+    private static final String[] SYLLABLES = { "ka", "lo", "min", "ter", "sa", "ne", "ro", "ti", "mar", "co", "ven",
+            "du", "pli", "ga", "ser", "bo", "fe", "lan", "qui", "tor", "ma", "ri", "son", "de", "vi", "pa", "tan",
+            "ler", "mo", "cri", "sta", "nu", "gel", "ho", "bre", "fin" };
+    private static final int VOCABULARY = 5000;
+    private static final int ACRONYMS = 20;
+    private static final int PHRASES = 300;
+    private static final int FUNCTION_WORDS = 60;
+    private static final int COMMA = Integer.MIN_VALUE;
+
+    private Random random;
+    private double[] cumulative;
+    private int[][] phrases;
+
+    /**
+     * Words of one language: content words indexed by token and the stop words
+     * used as function words.
+     */
+    public static class Lexicon {
+
+        private Locale locale;
+        private String[] words;
+        private String[] functionWords;
+
+        public Lexicon(String language) throws IOException {
+            locale = Locale.forLanguageTag(language);
+            Set<String> stopWords = StopWords.getStopWords(language);
+            // stop word sets have no stable order
+            String[] sorted = stopWords.toArray(new String[stopWords.size()]);
+            Arrays.sort(sorted);
+            functionWords = Arrays.copyOf(sorted, Math.min(FUNCTION_WORDS, sorted.length));
+
+            Random random = new Random(language.hashCode());
+            Set<String> set = new LinkedHashSet<>();
+            while (set.size() < VOCABULARY) {
+                StringBuilder sb = new StringBuilder();
+                int syllables = set.size() < ACRONYMS ? 2 : 2 + random.nextInt(3);
+                for (int i = 0; i < syllables; i++) {
+                    sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+                }
+                String word = sb.toString();
+                if (!stopWords.contains(word)) {
+                    set.add(word);
+                }
+            }
+            words = set.toArray(new String[set.size()]);
+        }
+
+        String render(int[] tokens) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < tokens.length; i++) {
+                int token = tokens[i];
+                if (token == COMMA) {
+                    sb.append(',');
+                    continue;
+                }
+                String word;
+                if (token < 0) {
+                    word = functionWords[(-1 - token) % functionWords.length];
+                } else if (token < ACRONYMS) {
+                    word = words[token].toUpperCase(locale);
+                } else {
+                    word = words[token];
+                }
+                if (i == 0) {
+                    word = word.substring(0, 1).toUpperCase(locale) + word.substring(1);
+                } else {
+                    sb.append(' ');
+                }
+                sb.append(word);
+            }
+            sb.append('.');
+            return sb.toString();
+        }
+    }
+
+    public SyntheticCorpus(long seed) {
+        random = new Random(seed);
+        cumulative = new double[VOCABULARY];
+        double sum = 0;
+        for (int i = 0; i < VOCABULARY; i++) {
+            sum += 1 / Math.pow(i + 1.0, 1.07);
+            cumulative[i] = sum;
+        }
+        phrases = new int[PHRASES][];
+        for (int i = 0; i < PHRASES; i++) {
+            phrases[i] = new int[2 + random.nextInt(2)];
+            for (int j = 0; j < phrases[i].length; j++) {
+                phrases[i][j] = ACRONYMS + random.nextInt(VOCABULARY / 4);
+            }
+        }
+    }
+
+    /**
+     * Generates segments with source and target text in state "final",
+     * numbered from 1.
+     */
+    public List<Segment> segments(int count, Lexicon source, Lexicon target) {
+        List<Segment> result = new ArrayList<>();
+        for (int number = 1; number <= count; number++) {
+            StringBuilder sourceText = new StringBuilder();
+            StringBuilder targetText = new StringBuilder();
+            int sentences = 1 + random.nextInt(3);
+            for (int s = 0; s < sentences; s++) {
+                int[] tokens = nextSentence();
+                if (s > 0) {
+                    sourceText.append(' ');
+                    targetText.append(' ');
+                }
+                sourceText.append(source.render(tokens));
+                targetText.append(target.render(tokens));
+            }
+            result.add(new Segment(number, "final", sourceText.toString(), targetText.toString()));
+        }
+        return result;
+    }
+
+    /**
+     * Writes an XLIFF 2.0 document with one unit per segment.
+     */
+    public static void write(File file, String srcLang, String trgLang, List<Segment> segments)
+            throws IOException {
+        try (OutputStream stream = new BufferedOutputStream(new FileOutputStream(file))) {
+            XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(stream, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement("xliff");
+            writer.writeDefaultNamespace(NAMESPACE);
+            writer.writeAttribute("version", "2.0");
+            writer.writeAttribute("srcLang", srcLang);
+            writer.writeAttribute("trgLang", trgLang);
+            writer.writeStartElement("file");
+            writer.writeAttribute("id", "f1");
+            for (Segment segment : segments) {
+                writer.writeStartElement("unit");
+                writer.writeAttribute("id", "u" + segment.number());
+                writer.writeStartElement("segment");
+                writer.writeAttribute("state", segment.state());
+                writer.writeStartElement("source");
+                writer.writeCharacters(segment.source());
+                writer.writeEndElement();
+                writer.writeStartElement("target");
+                writer.writeCharacters(segment.target());
+                writer.writeEndElement();
+                writer.writeEndElement();
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return content words as indexes in the lexicon, function words as
+     *         negative numbers and commas as {@link #COMMA}
+     */
+    private int[] nextSentence() {
+        int length = 6 + random.nextInt(13);
+        int[] tokens = new int[length + 4];
+        int size = 0;
+        while (size < length) {
+            double p = random.nextDouble();
+            if (p < 0.35) {
+                tokens[size++] = -1 - random.nextInt(FUNCTION_WORDS);
+            } else if (p < 0.45) {
+                for (int word : phrases[random.nextInt(PHRASES)]) {
+                    tokens[size++] = word;
+                }
+            } else {
+                tokens[size++] = nextWord();
+            }
+            if (size > 1 && size < length && random.nextDouble() < 0.05) {
+                tokens[size++] = COMMA;
+            }
+        }
+        if (tokens[size - 1] == COMMA) {
+            size--;
+        }
+        return Arrays.copyOf(tokens, size);
+    }
+
+    private int nextWord() {
+        double value = random.nextDouble() * cumulative[VOCABULARY - 1];
+        int i = Arrays.binarySearch(cumulative, value);
+        return i >= 0 ? i : Math.min(-1 - i, VOCABULARY - 1);
+    }
+}
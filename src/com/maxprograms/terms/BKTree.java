@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Burkhard-Keller tree over Levenshtein distance. Each text is stored with an
+ * integer key; searches return the keys of all texts within a given distance
+ * without comparing the query against every stored text.
+ */
+class BKTree {
+
+    private Node root;
+
+    private static class Node {
+        String text;
+        int key;
+        // children indexed by their distance to this node
+        Node[] children;
+
+        Node(String text, int key) {
+            this.text = text;
+            this.key = key;
+        }
+    }
+
+    void add(String text, int key) {
+        if (root == null) {
+            root = new Node(text, key);
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = exactDistance(text, node.text);
+            if (node.children == null) {
+                node.children = new Node[distance + 1];
+            } else if (node.children.length <= distance) {
+                node.children = Arrays.copyOf(node.children, distance + 1);
+            }
+            Node child = node.children[distance];
+            if (child == null) {
+                node.children[distance] = new Node(text, key);
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * @return the keys of the texts within the given distance of the query,
+     *         sorted in ascending order
+     */
+    int[] search(String query, int maxDistance) {
+        int[] result = new int[8];
+        int count = 0;
+        if (root == null) {
+            return new int[0];
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            // a distance beyond the last child and the search radius prunes the
+            // same nodes as the exact one, so the computation can stop there
+            int bound = node.children == null ? maxDistance : node.children.length - 1 + maxDistance;
+            int distance = LevenshteinDistance.distanceWithin(query, node.text, bound);
+            if (distance <= maxDistance) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = node.key;
+            }
+            if (node.children != null) {
+                int from = Math.max(0, distance - maxDistance);
+                int to = Math.min(node.children.length - 1, distance + maxDistance);
+                for (int d = from; d <= to; d++) {
+                    if (node.children[d] != null) {
+                        pending.push(node.children[d]);
+                    }
+                }
+            }
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static int exactDistance(String x, String y) {
+        // the distance never exceeds the length of the longer string
+        return LevenshteinDistance.distanceWithin(x, y, Math.max(x.length(), y.length()));
+    }
+}
@@ -11,50 +11,74 @@
 package com.maxprograms.terms;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.lang.System.Logger;
 import java.lang.System.Logger.Level;
-import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
-import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
-import javax.xml.parsers.ParserConfigurationException;
-
-import org.xml.sax.SAXException;
-
-import com.maxprograms.xml.Document;
-import com.maxprograms.xml.Element;
-import com.maxprograms.xml.SAXBuilder;
-import com.maxprograms.xml.XMLOutputter;
-
 public class BilingualExtraction {
 
     private static Logger logger = System.getLogger(BilingualExtraction.class.getName());
     private static boolean debug = false;
 
+    private static final String[] COLUMNS = { "sourceTerm", "sourceScore", "sourceFrequency", "targetTerm",
+            "targetScore", "targetFrequency", "sharedSegments", "coOccurrenceCount" };
+    private static final String[] LABELS = { "SourceTerm", "SourceScore", "SourceFreq", "TargetTerm",
+            "TargetScore", "TargetFreq", "SharedSegments", "CoOccurrenceCount" };
+
+    private int threads = 1;
+    private long candidateMemory;
+    private ResultFormat format = ResultFormat.CSV_UTF16;
+
     static class TermPair {
         Term sourceTerm;
         Term targetTerm;
-        Set<Integer> sharedSegments;
+        private SegmentSet sourceSegments;
+        private SegmentSet targetSegments;
+        private SegmentSet sharedSegments;
+        private int coOccurrenceCount;
 
-        TermPair(Term source, Term target, Set<Integer> segments) {
+        TermPair(Term source, Term target, SegmentSet sourceSegments, SegmentSet targetSegments,
+                int coOccurrenceCount) {
             this.sourceTerm = source;
             this.targetTerm = target;
-            this.sharedSegments = segments;
+            this.sourceSegments = sourceSegments;
+            this.targetSegments = targetSegments;
+            this.coOccurrenceCount = coOccurrenceCount;
         }
 
         int getCoOccurrenceCount() {
-            return sharedSegments.size();
+            return coOccurrenceCount;
         }
+
+        /**
+         * @return the segments where both terms appear, computed on first use
+         */
+        SegmentSet getSharedSegments() {
+            if (sharedSegments == null) {
+                sharedSegments = sourceSegments.and(targetSegments);
+            }
+            return sharedSegments;
+        }
+    }
+
+    private record PairKey(String term, int coOccurrenceCount) {
     }
 
     public static void main(String[] args) {
@@ -68,6 +92,10 @@ public class BilingualExtraction {
         int minCoOccurrence = 1;
         int maxPairs = 0; // 0 means no limit
         double minCoOccurrenceRatio = 0.7; // 70% minimum ratio
+        int threads = 1;
+        long candidateMemory = 0;
+        boolean stats = false;
+        ResultFormat format = ResultFormat.CSV_UTF16;
 
         try {
             for (int i = 0; i < args.length; i++) {
@@ -95,6 +123,20 @@ public class BilingualExtraction {
                 if ("-minCoOccurrenceRatio".equals(args[i]) && i + 1 < args.length) {
                     minCoOccurrenceRatio = Double.parseDouble(args[i + 1]);
                 }
+                if ("-threads".equals(args[i]) && i + 1 < args.length) {
+                    threads = Integer.parseInt(args[i + 1]);
+                }
+                if ("-candidateMemory".equals(args[i]) && i + 1 < args.length) {
+                    candidateMemory = Long.parseLong(args[i + 1]);
+                }
+                if ("-format".equals(args[i]) && i + 1 < args.length) {
+                    format = ResultFormat.forName(args[i + 1]);
+                    if (format == null) {
+                        MessageFormat mf = new MessageFormat(Messages.getString("BilingualExtraction.25"));
+                        logger.log(Level.ERROR, mf.format(new String[] { args[i + 1] }));
+                        System.exit(1);
+                    }
+                }
                 if ("-version".equals(args[i])) {
                     MessageFormat mf = new MessageFormat(Messages.getString("TermExtractor.4"));
                     logger.log(Level.INFO, mf.format(new String[] { Constants.VERSION, Constants.BUILD }));
@@ -107,6 +149,9 @@ public class BilingualExtraction {
                 if ("-debug".equals(args[i])) {
                     debug = true;
                 }
+                if ("-stats".equals(args[i])) {
+                    stats = true;
+                }
                 if ("-lang".equals(args[i]) && i + 1 < args.length) {
                     String lang = args[i + 1];
                     if ("en".equals(lang) || "es".equals(lang) ) {
@@ -145,6 +190,14 @@ public class BilingualExtraction {
                 logger.log(Level.ERROR, Messages.getString("BilingualExtraction.6"));
                 System.exit(1);
             }
+            if (threads < 1) {
+                logger.log(Level.ERROR, Messages.getString("TermExtractor.13"));
+                System.exit(1);
+            }
+            if (candidateMemory < 0) {
+                logger.log(Level.ERROR, Messages.getString("TermExtractor.16"));
+                System.exit(1);
+            }
 
             File xliffFile = new File(xliff);
             if (!xliffFile.exists()) {
@@ -158,15 +211,22 @@ public class BilingualExtraction {
                 String path = file.getAbsolutePath();
                 int index = path.lastIndexOf('.');
                 if (index != -1) {
-                    output = path.substring(0, index) + "_bilingual.csv";
+                    output = path.substring(0, index) + "_bilingual." + format.getExtension();
                 } else {
-                    output = path + "_bilingual.csv";
+                    output = path + "_bilingual." + format.getExtension();
                 }
             }
 
+            Stage.setCollecting(stats);
             BilingualExtraction extractor = new BilingualExtraction();
+            extractor.setThreads(threads);
+            extractor.setCandidateMemory(candidateMemory * 1024 * 1024);
+            extractor.setFormat(format);
             extractor.extract(xliff, output, minFrequency, maxScore, maxTermLength,
                     minCoOccurrence, maxPairs, minCoOccurrenceRatio);
+            if (stats) {
+                logger.log(Level.INFO, Stage.summary());
+            }
 
             if (debug) {
                 MessageFormat mf = new MessageFormat(Messages.getString("BilingualExtraction.8"));
@@ -187,33 +247,57 @@ public class BilingualExtraction {
         logger.log(Level.INFO, msg);
     }
 
+    /**
+     * Sets the number of threads to use. With 2 or more threads source and
+     * target terms are extracted at the same time, each side using half of
+     * the threads. The default, 1, processes both sides one after the other.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Sets the approximate number of bytes that multi-word candidates of each
+     * language may use before they are counted on disk. The default, 0, keeps
+     * all candidates in memory.
+     * 
+     * @see ExtractionOptions#setCandidateMemory(long)
+     */
+    public void setCandidateMemory(long candidateMemory) {
+        this.candidateMemory = candidateMemory;
+    }
+
+    /**
+     * Sets the format of the output file. The default is UTF-16LE CSV.
+     */
+    public void setFormat(ResultFormat format) {
+        this.format = format;
+    }
+
     public void extract(String xliffFile, String outputFile, int minFrequency, double maxScore,
             int maxTermLength, int minCoOccurrence, int maxPairs, double minCoOccurrenceRatio)
-            throws SAXException, IOException, ParserConfigurationException {
-
-        // Step 1: Parse XLIFF and get languages
-        SAXBuilder builder = new SAXBuilder();
-        Document doc = builder.build(xliffFile);
-        Element root = doc.getRootElement();
+            throws IOException {
 
-        String srcLang = root.getAttributeValue("srcLang", "en");
-        String trgLang = root.getAttributeValue("trgLang", "en");
+        // Step 1: Read final segment pairs and languages in a single pass
+        List<Segment> sourceSegments = new ArrayList<>();
+        List<Segment> targetSegments = new ArrayList<>();
+        String srcLang;
+        String trgLang;
+        Stage stage = Stage.start("parse");
+        try (XliffReader reader = new XliffReader(xliffFile)) {
+            srcLang = reader.getSrcLang() != null ? reader.getSrcLang() : "en";
+            trgLang = reader.getTrgLang() != null ? reader.getTrgLang() : "en";
+            collectFinalSegmentPairs(reader, sourceSegments, targetSegments);
+        }
+        stage.end(sourceSegments.size());
 
         if (debug) {
             MessageFormat mf = new MessageFormat(Messages.getString("BilingualExtraction.10"));
             logger.log(Level.INFO, mf.format(new String[] { srcLang, trgLang }));
         }
 
-        // Step 2: Create temporary XLIFF files for source and target
-        File tempSourceXliff = File.createTempFile("bilingual_source_", ".xlf");
-        File tempTargetXliff = File.createTempFile("bilingual_target_", ".xlf");
-        tempSourceXliff.deleteOnExit();
-        tempTargetXliff.deleteOnExit();
-
-        int segmentCount = createTempXliffFiles(xliffFile, srcLang, trgLang,
-                tempSourceXliff.getAbsolutePath(),
-                tempTargetXliff.getAbsolutePath());
-
+        // Step 2: Make sure there is something to process
+        int segmentCount = sourceSegments.size();
         if (segmentCount == 0) {
             logger.log(Level.WARNING, Messages.getString("BilingualExtraction.11"));
             return;
@@ -224,153 +308,142 @@ public class BilingualExtraction {
             logger.log(Level.INFO, mf.format(new Object[] { segmentCount }));
         }
 
-        // Step 3: Extract terms from source using TermExtractor
-        TermExtractor sourceExtractor = new TermExtractor(tempSourceXliff.getAbsolutePath(),
-                maxTermLength, minFrequency, maxScore, false);
-        List<Term> sourceTerms = sourceExtractor.getTerms();
-        List<Integer> sourceSentenceToSegment = sourceExtractor.getSentenceToSegmentMap();
+        // Steps 3 and 4: Extract terms from source and target using TermExtractor
+        ExtractionOptions options = new ExtractionOptions(maxTermLength, minFrequency, maxScore, false);
+        options.setThreads(Math.max(1, threads / 2));
+        options.setCandidateMemory(candidateMemory);
+        Callable<TermExtractor> sourceTask = () -> new TermExtractor(srcLang, sourceSegments.iterator(), options);
+        Callable<TermExtractor> targetTask = () -> new TermExtractor(trgLang, targetSegments.iterator(), options);
+
+        TermExtractor sourceExtractor;
+        TermExtractor targetExtractor;
+        Map<String, SegmentSet> sourceTermSegments;
+        Map<String, SegmentSet> targetTermSegments;
+        if (threads > 1) {
+            try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+                Future<TermExtractor> sourceFuture = executor.submit(sourceTask);
+                Future<TermExtractor> targetFuture = executor.submit(targetTask);
+                sourceExtractor = await(sourceFuture);
+                targetExtractor = await(targetFuture);
+                logExtractedTerms(sourceExtractor, targetExtractor);
+
+                // Step 5: Build segment-to-term mapping using sentence indices
+                Future<Map<String, SegmentSet>> sourceMap = executor
+                        .submit(() -> buildTermSegmentMapFromSentences(sourceExtractor.getTerms(),
+                                sourceExtractor.getSentenceToSegmentMap()));
+                Future<Map<String, SegmentSet>> targetMap = executor
+                        .submit(() -> buildTermSegmentMapFromSentences(targetExtractor.getTerms(),
+                                targetExtractor.getSentenceToSegmentMap()));
+                sourceTermSegments = await(sourceMap);
+                targetTermSegments = await(targetMap);
+            }
+        } else {
+            sourceExtractor = call(sourceTask);
+            targetExtractor = call(targetTask);
+            logExtractedTerms(sourceExtractor, targetExtractor);
 
-        if (debug) {
-            MessageFormat mf = new MessageFormat(Messages.getString("BilingualExtraction.13"));
-            logger.log(Level.INFO, mf.format(new Object[] { sourceTerms.size() }));
+            // Step 5: Build segment-to-term mapping using sentence indices
+            sourceTermSegments = buildTermSegmentMapFromSentences(sourceExtractor.getTerms(),
+                    sourceExtractor.getSentenceToSegmentMap());
+            targetTermSegments = buildTermSegmentMapFromSentences(targetExtractor.getTerms(),
+                    targetExtractor.getSentenceToSegmentMap());
         }
-
-        // Step 4: Extract terms from target using TermExtractor
-        TermExtractor targetExtractor = new TermExtractor(tempTargetXliff.getAbsolutePath(),
-                maxTermLength, minFrequency, maxScore, false);
+        List<Term> sourceTerms = sourceExtractor.getTerms();
         List<Term> targetTerms = targetExtractor.getTerms();
-        List<Integer> targetSentenceToSegment = targetExtractor.getSentenceToSegmentMap();
-
-        if (debug) {
-            MessageFormat mf = new MessageFormat(Messages.getString("BilingualExtraction.14"));
-            logger.log(Level.INFO, mf.format(new Object[] { targetTerms.size() }));
-        }
-
-        // Step 5: Build segment-to-term mapping using sentence indices
-        Map<String, Set<Integer>> sourceTermSegments = buildTermSegmentMapFromSentences(sourceTerms,
-                sourceSentenceToSegment);
-        Map<String, Set<Integer>> targetTermSegments = buildTermSegmentMapFromSentences(targetTerms,
-                targetSentenceToSegment);
 
         // Step 6: Generate co-occurring pairs
+        Utils.checkInterrupted();
+        stage = Stage.start("generatePairs");
         List<TermPair> pairs = generatePairs(sourceTerms, targetTerms, sourceTermSegments, targetTermSegments);
+        stage.end(pairs.size());
 
         // Step 7: Apply mutual best match filtering to reduce garbage pairs
+        Utils.checkInterrupted();
+        stage = Stage.start("filterPairs");
         pairs = filterMutualBestMatch(pairs);
 
         // Step 8: Apply co-occurrence filters
         pairs = filterPairs(pairs, minCoOccurrence, maxPairs, minCoOccurrenceRatio);
+        stage.end(pairs.size());
 
         // Step 9: Deduplicate pairs (keep best terms based on YAKE score)
+        Utils.checkInterrupted();
+        stage = Stage.start("deduplicatePairs");
         pairs = deduplicatePairs(pairs);
+        stage.end(pairs.size());
 
         if (debug) {
             MessageFormat mf = new MessageFormat(Messages.getString("BilingualExtraction.15"));
             logger.log(Level.INFO, mf.format(new Object[] { pairs.size() }));
         }
 
-        // Step 9: Write CSV output
-        writeCSV(outputFile, pairs);
+        // Step 9: Write output
+        Utils.checkInterrupted();
+        stage = Stage.start("output");
+        writeResults(outputFile, pairs, srcLang, trgLang);
+        stage.end(pairs.size());
     }
 
-    private int createTempXliffFiles(String xliffFile, String srcLang, String trgLang,
-            String sourceXliffPath, String targetXliffPath)
-            throws SAXException, IOException, ParserConfigurationException {
-
-        SAXBuilder builder = new SAXBuilder();
-        Document doc = builder.build(xliffFile);
-        Element root = doc.getRootElement();
-
-        // Create both documents simultaneously to ensure matching segment numbers
-        Document sourceDoc = createEmptyXliff(srcLang);
-        Document targetDoc = createEmptyXliff(trgLang);
-
-        Element sourceFile = sourceDoc.getRootElement().getChild("file");
-        Element targetFile = targetDoc.getRootElement().getChild("file");
-
-        Locale srcLocale = Locale.forLanguageTag(srcLang);
-        Locale trgLocale = Locale.forLanguageTag(trgLang);
-
-        // Process both source and target together
-        int segmentCount = collectFinalSegmentPairs(root, sourceFile, targetFile, srcLocale, trgLocale);
-
-        writeXmlDocument(sourceDoc, sourceXliffPath);
-        writeXmlDocument(targetDoc, targetXliffPath);
-
-        return segmentCount;
+    private void logExtractedTerms(TermExtractor sourceExtractor, TermExtractor targetExtractor) {
+        if (debug) {
+            MessageFormat mf = new MessageFormat(Messages.getString("BilingualExtraction.13"));
+            logger.log(Level.INFO, mf.format(new Object[] { sourceExtractor.getTerms().size() }));
+            mf = new MessageFormat(Messages.getString("BilingualExtraction.14"));
+            logger.log(Level.INFO, mf.format(new Object[] { targetExtractor.getTerms().size() }));
+        }
     }
 
-    private Document createEmptyXliff(String language) {
-        Element xliff = new Element("xliff");
-        xliff.setAttribute("version", "2.1");
-        xliff.setAttribute("srcLang", language);
-        xliff.setAttribute("xmlns", "urn:oasis:names:tc:xliff:document:2.0");
-
-        Element file = new Element("file");
-        file.setAttribute("id", "f1");
-        xliff.addContent(file);
-
-        Document doc = new Document(null, "xliff", null);
-        doc.setRootElement(xliff);
-        return doc;
+    private static <T> T call(Callable<T> task) throws IOException {
+        try {
+            return task.call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e.getMessage(), e);
+        }
     }
 
-    private int collectFinalSegmentPairs(Element element, Element sourceFile, Element targetFile,
-            Locale srcLocale, Locale trgLocale) {
-
-        if ("segment".equals(element.getName())) {
-            String state = element.getAttributeValue("state", "");
-            if ("final".equals(state)) {
-                Element sourceElem = element.getChild("source");
-                Element targetElem = element.getChild("target");
-
-                if (sourceElem != null && targetElem != null) {
-                    String sourceText = Utils.pureText(sourceElem);
-                    String targetText = Utils.pureText(targetElem);
-
-                    if (!sourceText.isBlank() && !targetText.isBlank()) {
-                        int segmentNumber = sourceFile.getChildren().size();
-
-                        // Create source segment with full text
-                        Element srcSeg = new Element("segment");
-                        srcSeg.setAttribute("id", String.valueOf(segmentNumber));
-                        Element src = new Element("source");
-                        src.addContent(sourceText);
-                        srcSeg.addContent(src);
-                        sourceFile.addContent(srcSeg);
-
-                        // Create target segment with SAME number
-                        Element tgtSeg = new Element("segment");
-                        tgtSeg.setAttribute("id", String.valueOf(segmentNumber));
-                        Element tgt = new Element("source"); // target becomes source for extraction
-                        tgt.addContent(targetText);
-                        tgtSeg.addContent(tgt);
-                        targetFile.addContent(tgtSeg);
-                    }
-                }
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException(e.getMessage());
+            interrupted.initCause(e);
+            throw interrupted;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
             }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(cause.getMessage(), cause);
         }
-
-        // Recurse through children
-        List<Element> children = element.getChildren();
-        for (Element child : children) {
-            collectFinalSegmentPairs(child, sourceFile, targetFile, srcLocale, trgLocale);
-        }
-
-        return sourceFile.getChildren().size();
     }
 
-    private void writeXmlDocument(Document doc, String filePath) throws IOException {
-        XMLOutputter outputter = new XMLOutputter();
-        outputter.preserveSpace(true);
-        try (FileOutputStream out = new FileOutputStream(filePath)) {
-            outputter.output(doc, out);
+    private void collectFinalSegmentPairs(XliffReader reader, List<Segment> sourceSegments,
+            List<Segment> targetSegments) throws IOException {
+        Segment segment = reader.nextSegment();
+        while (segment != null) {
+            Utils.checkInterrupted();
+            if ("final".equals(segment.state()) && segment.source() != null && segment.target() != null
+                    && !segment.source().isBlank() && !segment.target().isBlank()) {
+                // Number source and target with the same value so they can be matched later
+                int segmentNumber = sourceSegments.size() + 1;
+                sourceSegments.add(new Segment(segmentNumber, segment.state(), segment.source(), null));
+                // target becomes source for extraction
+                targetSegments.add(new Segment(segmentNumber, segment.state(), segment.target(), null));
+            }
+            segment = reader.nextSegment();
         }
     }
 
-    private Map<String, Set<Integer>> buildTermSegmentMapFromSentences(List<Term> terms,
-            List<Integer> sentenceToSegment) {
-        Map<String, Set<Integer>> termSegments = new HashMap<>();
+    Map<String, SegmentSet> buildTermSegmentMapFromSentences(List<Term> terms,
+            List<Integer> sentenceToSegment) throws InterruptedIOException {
+        Stage stage = Stage.start("termSegmentMap");
+        Map<String, SegmentSet> termSegments = new HashMap<>();
 
         if (debug) {
             MessageFormat mf = new MessageFormat(Messages.getString("BilingualExtraction.16"));
@@ -382,8 +455,9 @@ public class BilingualExtraction {
         int termsWithOutOfBoundsSentences = 0;
 
         for (Term term : terms) {
-            Set<Integer> segments = new HashSet<>();
-            Vector<Integer> sentenceIndices = term.getOffsetSentences();
+            Utils.checkInterrupted();
+            SegmentSet segments = new SegmentSet();
+            SentenceOffsets sentenceIndices = term.getOffsetSentences();
 
             if (sentenceIndices.isEmpty()) {
                 termsWithNoSentences++;
@@ -394,7 +468,8 @@ public class BilingualExtraction {
             }
 
             // Map sentence indices to segment numbers
-            for (Integer sentenceIndex : sentenceIndices) {
+            for (int i = 0; i < sentenceIndices.size(); i++) {
+                int sentenceIndex = sentenceIndices.get(i);
                 if (sentenceIndex < sentenceToSegment.size()) {
                     segments.add(sentenceToSegment.get(sentenceIndex));
                 } else {
@@ -410,9 +485,10 @@ public class BilingualExtraction {
                 termsWithSegments++;
                 if (debug && termsWithSegments <= 3) {
                     MessageFormat mf = new MessageFormat(Messages.getString("BilingualExtraction.19"));
-                    logger.log(Level.INFO, mf.format(new Object[] { term.getText(), segments.size() }));
+                    logger.log(Level.INFO, mf.format(new Object[] { term.getText(), segments.cardinality() }));
                 }
             }
+            segments.runOptimize();
 
             termSegments.put(term.getText(), segments);
         }
@@ -421,11 +497,13 @@ public class BilingualExtraction {
             MessageFormat mf = new MessageFormat(Messages.getString("BilingualExtraction.20"));
             logger.log(Level.INFO, mf.format(new Object[] { termsWithSegments, termsWithNoSentences, termsWithOutOfBoundsSentences }));
         }
+        stage.end(termSegments.size());
         return termSegments;
     }
 
-    private List<TermPair> generatePairs(List<Term> sourceTerms, List<Term> targetTerms,
-            Map<String, Set<Integer>> sourceTermSegments, Map<String, Set<Integer>> targetTermSegments) {
+    List<TermPair> generatePairs(List<Term> sourceTerms, List<Term> targetTerms,
+            Map<String, SegmentSet> sourceTermSegments, Map<String, SegmentSet> targetTermSegments)
+            throws InterruptedIOException {
 
         List<TermPair> pairs = new ArrayList<>();
         if (debug) {
@@ -433,31 +511,47 @@ public class BilingualExtraction {
             logger.log(Level.INFO, mf.format(new Object[] { sourceTerms.size(), targetTerms.size() }));
         }
 
+        // Inverted index: for each segment, the target terms that appear in it
+        int[][] segmentIndex = buildSegmentIndex(targetTerms, targetTermSegments);
+
+        // Co-occurrence counters, reused for every source term
+        int[] counts = new int[targetTerms.size()];
+        int[] touched = new int[targetTerms.size()];
+
         int pairsFound = 0;
         for (Term sourceTerm : sourceTerms) {
-            Set<Integer> sourceSegs = sourceTermSegments.get(sourceTerm.getText());
+            Utils.checkInterrupted();
+            SegmentSet sourceSegs = sourceTermSegments.get(sourceTerm.getText());
             if (sourceSegs == null || sourceSegs.isEmpty()) {
                 continue;
             }
 
-            for (Term targetTerm : targetTerms) {
-                Set<Integer> targetSegs = targetTermSegments.get(targetTerm.getText());
-                if (targetSegs == null || targetSegs.isEmpty()) {
-                    continue;
+            // Walk the segments of the source term, counting the target terms found there
+            int[] touchedCount = new int[1];
+            sourceSegs.forEach(segment -> {
+                if (segment < 0 || segment >= segmentIndex.length || segmentIndex[segment] == null) {
+                    return;
                 }
-
-                // Find intersection
-                Set<Integer> sharedSegments = new HashSet<>(sourceSegs);
-                sharedSegments.retainAll(targetSegs);
-
-                if (!sharedSegments.isEmpty()) {
-                    pairs.add(new TermPair(sourceTerm, targetTerm, sharedSegments));
-                    pairsFound++;
-                    if (debug && pairsFound <= 5) {
-                        MessageFormat mf = new MessageFormat(Messages.getString("BilingualExtraction.22"));
-                        logger.log(Level.INFO, mf.format(new Object[] { sourceTerm.getText(), targetTerm.getText(), sharedSegments.size() }));
+                for (int target : segmentIndex[segment]) {
+                    if (counts[target]++ == 0) {
+                        touched[touchedCount[0]++] = target;
                     }
                 }
+            });
+
+            // Keep target term order
+            Arrays.sort(touched, 0, touchedCount[0]);
+            for (int i = 0; i < touchedCount[0]; i++) {
+                int target = touched[i];
+                Term targetTerm = targetTerms.get(target);
+                pairs.add(new TermPair(sourceTerm, targetTerm, sourceSegs,
+                        targetTermSegments.get(targetTerm.getText()), counts[target]));
+                pairsFound++;
+                if (debug && pairsFound <= 5) {
+                    MessageFormat mf = new MessageFormat(Messages.getString("BilingualExtraction.22"));
+                    logger.log(Level.INFO, mf.format(new Object[] { sourceTerm.getText(), targetTerm.getText(), counts[target] }));
+                }
+                counts[target] = 0;
             }
         }
 
@@ -468,6 +562,46 @@ public class BilingualExtraction {
         return pairs;
     }
 
+    /**
+     * Builds a table indexed by segment number that lists, in ascending order,
+     * the positions of the target terms found in each segment.
+     */
+    private int[][] buildSegmentIndex(List<Term> targetTerms, Map<String, SegmentSet> targetTermSegments) {
+        List<int[]> termSegments = new ArrayList<>();
+        int maxSegment = -1;
+        for (Term targetTerm : targetTerms) {
+            SegmentSet segments = targetTermSegments.get(targetTerm.getText());
+            int[] array = segments == null ? new int[0] : segments.toArray();
+            termSegments.add(array);
+            if (array.length > 0) {
+                maxSegment = Math.max(maxSegment, array[array.length - 1]);
+            }
+        }
+        int[] sizes = new int[maxSegment + 1];
+        for (int[] array : termSegments) {
+            for (int segment : array) {
+                if (segment >= 0) {
+                    sizes[segment]++;
+                }
+            }
+        }
+        int[][] index = new int[maxSegment + 1][];
+        for (int segment = 0; segment <= maxSegment; segment++) {
+            if (sizes[segment] > 0) {
+                index[segment] = new int[sizes[segment]];
+                sizes[segment] = 0;
+            }
+        }
+        for (int target = 0; target < termSegments.size(); target++) {
+            for (int segment : termSegments.get(target)) {
+                if (segment >= 0) {
+                    index[segment][sizes[segment]++] = target;
+                }
+            }
+        }
+        return index;
+    }
+
     private List<TermPair> filterMutualBestMatch(List<TermPair> pairs) {
         // Build maps of best matches in each direction
         Map<String, TermPair> bestTargetForSource = new HashMap<>();
@@ -571,36 +705,49 @@ public class BilingualExtraction {
 
     private List<TermPair> deduplicatePairs(List<TermPair> pairs) {
         // First pass: deduplicate by source term + segments (remove shorter targets)
-        Map<String, List<TermPair>> bySource = new HashMap<>();
-        for (TermPair pair : pairs) {
-            String key = pair.sourceTerm.getText() + "|" + pair.sharedSegments.stream()
-                    .map(String::valueOf)
-                    .collect(Collectors.joining(","));
-            bySource.computeIfAbsent(key, k -> new ArrayList<>()).add(pair);
-        }
-
         List<TermPair> afterSourceDedup = new ArrayList<>();
-        for (List<TermPair> group : bySource.values()) {
+        for (List<TermPair> group : groupBySharedSegments(pairs, true)) {
             afterSourceDedup.addAll(deduplicateBySubstring(group, false)); // false = check targets
         }
 
         // Second pass: deduplicate by target term + segments (remove shorter sources)
-        Map<String, List<TermPair>> byTarget = new HashMap<>();
-        for (TermPair pair : afterSourceDedup) {
-            String key = pair.targetTerm.getText() + "|" + pair.sharedSegments.stream()
-                    .map(String::valueOf)
-                    .collect(Collectors.joining(","));
-            byTarget.computeIfAbsent(key, k -> new ArrayList<>()).add(pair);
-        }
-
         List<TermPair> deduplicated = new ArrayList<>();
-        for (List<TermPair> group : byTarget.values()) {
+        for (List<TermPair> group : groupBySharedSegments(afterSourceDedup, false)) {
             deduplicated.addAll(deduplicateBySubstring(group, true)); // true = check sources
         }
 
         return deduplicated;
     }
 
+    /**
+     * Groups the pairs that have the same source or target term and the same
+     * shared segments, in order of first pair. Pairs with equal shared segments
+     * have the same co-occurrence count, so pairs are grouped by term and count
+     * first and shared segments are only computed to split groups of more than
+     * one pair.
+     */
+    private static List<List<TermPair>> groupBySharedSegments(List<TermPair> pairs, boolean bySource) {
+        Map<PairKey, List<TermPair>> byCount = new LinkedHashMap<>();
+        for (TermPair pair : pairs) {
+            String term = bySource ? pair.sourceTerm.getText() : pair.targetTerm.getText();
+            byCount.computeIfAbsent(new PairKey(term, pair.getCoOccurrenceCount()), k -> new ArrayList<>())
+                    .add(pair);
+        }
+        List<List<TermPair>> groups = new ArrayList<>();
+        for (List<TermPair> group : byCount.values()) {
+            if (group.size() == 1) {
+                groups.add(group);
+                continue;
+            }
+            Map<SegmentSet, List<TermPair>> bySegments = new LinkedHashMap<>();
+            for (TermPair pair : group) {
+                bySegments.computeIfAbsent(pair.getSharedSegments(), k -> new ArrayList<>()).add(pair);
+            }
+            groups.addAll(bySegments.values());
+        }
+        return groups;
+    }
+
     private List<TermPair> deduplicateBySubstring(List<TermPair> group, boolean checkSource) {
         if (group.size() == 1) {
             return group;
@@ -668,40 +815,31 @@ public class BilingualExtraction {
         return result;
     }
 
-    private void writeCSV(String outputFile, List<TermPair> pairs) throws IOException {
-        try (FileOutputStream output = new FileOutputStream(outputFile)) {
-            // Write BOM for UTF-16LE
-            output.write(0xFF);
-            output.write(0xFE);
-
-            // Write header
-            String header = "SourceTerm,SourceScore,SourceFreq,TargetTerm,TargetScore,TargetFreq,SharedSegments,CoOccurrenceCount\n";
-            output.write(header.getBytes(StandardCharsets.UTF_16LE));
-
-            // Write data rows
+    private void writeResults(String outputFile, List<TermPair> pairs, String srcLang, String trgLang)
+            throws IOException {
+        try (ResultWriter writer = format.open(outputFile)) {
+            writer.setLanguages(srcLang, trgLang);
+            writer.writeHeader(COLUMNS, LABELS);
             for (TermPair pair : pairs) {
-                String segmentList = pair.sharedSegments.stream()
-                        .map(String::valueOf)
-                        .collect(Collectors.joining("|"));
-                String row = String.format("%s,%.6f,%d,%s,%.6f,%d,\"%s\",%d\n",
-                        escapeCsv(pair.sourceTerm.getText()),
-                        pair.sourceTerm.getScore(),
+                writer.writeRow(pair.sourceTerm.getText(),
+                        fixed(pair.sourceTerm.getScore()),
                         pair.sourceTerm.getTermFrequency(),
-                        escapeCsv(pair.targetTerm.getText()),
-                        pair.targetTerm.getScore(),
+                        pair.targetTerm.getText(),
+                        fixed(pair.targetTerm.getScore()),
                         pair.targetTerm.getTermFrequency(),
-                        segmentList,
+                        pair.getSharedSegments().toArray(),
                         pair.getCoOccurrenceCount());
-
-                output.write(row.getBytes(StandardCharsets.UTF_16LE));
             }
         }
     }
 
-    private String escapeCsv(String value) {
-        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
-            return "\"" + value.replace("\"", "\"\"") + "\"";
+    /**
+     * Rounds a score to 6 decimals, independent of the default locale.
+     */
+    private static Object fixed(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return value;
         }
-        return value;
+        return BigDecimal.valueOf(value).setScale(6, RoundingMode.HALF_UP);
     }
 }
@@ -0,0 +1,323 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Counts multi-word candidates, optionally within a memory budget. A candidate
+ * is identified by the ids of its lowercase words and found in an open
+ * addressing table by a hash that callers extend one word at a time, so
+ * counting an occurrence does not build any string. The surface forms of the
+ * first occurrence are kept to write the candidate later.
+ * <p>
+ * When the estimated size of the table exceeds the budget, its candidates are
+ * sorted by key and written to a temporary file as a run. When all sentences
+ * have been seen the runs are merged, the occurrences of each candidate are
+ * added and only candidates that reach the minimum frequency are kept, so
+ * memory is needed for the candidates of one run and for the survivors.
+ */
+class CandidateRuns implements Closeable {
+
+    private static final int BUFFER = 65536;
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+    // approximate size of a table entry and a candidate without its arrays
+    private static final int ENTRY_SIZE = 160;
+
+    private long budget;
+    private long estimated;
+    private long occurrences;
+    private long[] hashes;
+    private Candidate[] table;
+    private List<Candidate> candidates;
+    private List<File> runs;
+
+    /**
+     * A multi-word candidate and the sentence of each occurrence.
+     */
+    static class Candidate {
+        int[] words;
+        int[] forms;
+        long first;
+        SentenceOffsets sentences;
+    }
+
+    private static class RunReader implements Closeable {
+        int run;
+        int remaining;
+        DataInputStream in;
+        Candidate current;
+
+        RunReader(int run, File file) throws IOException {
+            this.run = run;
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER));
+            remaining = in.readInt();
+        }
+
+        boolean next() throws IOException {
+            if (remaining == 0) {
+                current = null;
+                return false;
+            }
+            remaining--;
+            current = read(in);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * @param budget approximate number of bytes that candidates may use before
+     *               they are written to disk, or <code>Long.MAX_VALUE</code> to
+     *               keep all of them in memory
+     */
+    CandidateRuns(long budget) {
+        this.budget = budget;
+        runs = new ArrayList<>();
+        clear();
+    }
+
+    /**
+     * @return the hash of a candidate extended with its next word; the hash of
+     *         a candidate starts at 0
+     */
+    static long extend(long hash, int word) {
+        return (hash + word + 1) * MULTIPLIER;
+    }
+
+    /**
+     * Counts an occurrence of the candidate made of the tokens from
+     * <code>start</code> to <code>start + length - 1</code>.
+     *
+     * @param hash hash of the word ids of the candidate
+     */
+    void add(SentenceTokens tokens, int start, int length, long hash, int sentence) throws IOException {
+        int mask = table.length - 1;
+        int slot = spread(hash) & mask;
+        Candidate candidate = table[slot];
+        while (candidate != null && !(hashes[slot] == hash && matches(candidate.words, tokens, start, length))) {
+            slot = (slot + 1) & mask;
+            candidate = table[slot];
+        }
+        if (candidate == null) {
+            candidate = new Candidate();
+            candidate.words = new int[length];
+            candidate.forms = new int[length];
+            for (int i = 0; i < length; i++) {
+                candidate.words[i] = tokens.word(start + i);
+                candidate.forms[i] = tokens.form(start + i);
+            }
+            candidate.first = occurrences;
+            candidate.sentences = new SentenceOffsets();
+            table[slot] = candidate;
+            hashes[slot] = hash;
+            candidates.add(candidate);
+            estimated += ENTRY_SIZE + 8L * length;
+            if (candidates.size() * 2 > table.length) {
+                rehash();
+            }
+        }
+        candidate.sentences.add(sentence);
+        estimated += Integer.BYTES;
+        occurrences++;
+        if (estimated > budget) {
+            spill();
+        }
+    }
+
+    /**
+     * @return the candidates found at least <code>minFrequency</code> times,
+     *         in order of first occurrence
+     */
+    List<Candidate> finish(int minFrequency) throws IOException {
+        List<Candidate> result = new ArrayList<>();
+        if (runs.isEmpty()) {
+            for (Candidate candidate : candidates) {
+                if (candidate.sentences.size() >= minFrequency) {
+                    result.add(candidate);
+                }
+            }
+        } else {
+            spill();
+            merge(minFrequency, result);
+            result.sort(Comparator.comparingLong(candidate -> candidate.first));
+        }
+        clear();
+        return result;
+    }
+
+    int getRunCount() {
+        return runs.size();
+    }
+
+    private static boolean matches(int[] words, SentenceTokens tokens, int start, int length) {
+        if (words.length != length) {
+            // a candidate with a colliding hash may be a prefix of the new one
+            return false;
+        }
+        for (int i = 0; i < words.length; i++) {
+            if (words[i] != tokens.word(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private void rehash() {
+        long[] oldHashes = hashes;
+        Candidate[] oldTable = table;
+        hashes = new long[oldTable.length * 2];
+        table = new Candidate[oldTable.length * 2];
+        int mask = table.length - 1;
+        for (int i = 0; i < oldTable.length; i++) {
+            if (oldTable[i] != null) {
+                int slot = spread(oldHashes[i]) & mask;
+                while (table[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = oldTable[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    private void clear() {
+        hashes = new long[1024];
+        table = new Candidate[1024];
+        candidates = new ArrayList<>();
+        estimated = 0;
+    }
+
+    private void spill() throws IOException {
+        if (candidates.isEmpty()) {
+            return;
+        }
+        List<Candidate> sorted = new ArrayList<>(candidates);
+        sorted.sort((a, b) -> Arrays.compare(a.words, b.words));
+        File file = Files.createTempFile("terms", ".run").toFile();
+        runs.add(file);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), BUFFER))) {
+            out.writeInt(sorted.size());
+            for (Candidate candidate : sorted) {
+                write(out, candidate);
+            }
+        }
+        clear();
+    }
+
+    /**
+     * Merges the sorted runs. Runs hold consecutive ranges of sentences, so
+     * taking equal keys in run order keeps sentences in ascending order and
+     * the first occurrence from the first run that has the candidate.
+     */
+    private void merge(int minFrequency, List<Candidate> result) throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(
+                Comparator.comparing((RunReader reader) -> reader.current.words, Arrays::compare)
+                        .thenComparingInt(reader -> reader.run));
+        List<RunReader> readers = new ArrayList<>();
+        try {
+            for (int i = 0; i < runs.size(); i++) {
+                RunReader reader = new RunReader(i, runs.get(i));
+                readers.add(reader);
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                Candidate candidate = reader.current;
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+                while (!queue.isEmpty() && Arrays.equals(queue.peek().current.words, candidate.words)) {
+                    RunReader same = queue.poll();
+                    candidate.sentences.addAll(same.current.sentences);
+                    if (same.next()) {
+                        queue.add(same);
+                    }
+                }
+                if (candidate.sentences.size() >= minFrequency) {
+                    result.add(candidate);
+                }
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private static void write(DataOutputStream out, Candidate candidate) throws IOException {
+        out.writeInt(candidate.words.length);
+        for (int i = 0; i < candidate.words.length; i++) {
+            out.writeInt(candidate.words[i]);
+            out.writeInt(candidate.forms[i]);
+        }
+        out.writeLong(candidate.first);
+        int[] sentences = candidate.sentences.toArray();
+        out.writeInt(sentences.length);
+        for (int sentence : sentences) {
+            out.writeInt(sentence);
+        }
+    }
+
+    private static Candidate read(DataInputStream in) throws IOException {
+        Candidate candidate = new Candidate();
+        int length = in.readInt();
+        candidate.words = new int[length];
+        candidate.forms = new int[length];
+        for (int i = 0; i < length; i++) {
+            candidate.words[i] = in.readInt();
+            candidate.forms[i] = in.readInt();
+        }
+        candidate.first = in.readLong();
+        int count = in.readInt();
+        candidate.sentences = new SentenceOffsets();
+        for (int i = 0; i < count; i++) {
+            candidate.sentences.add(in.readInt());
+        }
+        return candidate;
+    }
+
+    /**
+     * Deletes the temporary files.
+     */
+    @Override
+    public void close() throws IOException {
+        for (File file : runs) {
+            Files.deleteIfExists(file.toPath());
+        }
+        runs.clear();
+    }
+}
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Counts the words seen next to a term, keyed by vocabulary id. Counts are
+ * kept in an open addressing table of primitive ints that is allocated on the
+ * first increment; the number of distinct words and the sum of all counts are
+ * maintained as words are added.
+ */
+class ContextCounter {
+
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private int[] counts;
+    private int distinct;
+    private int total;
+
+    void add(int word) {
+        add(word, 1);
+    }
+
+    int distinct() {
+        return distinct;
+    }
+
+    int total() {
+        return total;
+    }
+
+    /**
+     * Decrements the count of a word, forgetting it when the count reaches 0.
+     */
+    void remove(int word) {
+        if (keys == null) {
+            return;
+        }
+        int mask = keys.length - 1;
+        for (int slot = hash(word) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == word) {
+                total--;
+                counts[slot]--;
+                if (counts[slot] == 0) {
+                    delete(slot);
+                    distinct--;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds the counts of another counter whose ids are translated with the
+     * given table.
+     */
+    void addAll(ContextCounter other, int[] wordMap) {
+        if (other.keys == null) {
+            return;
+        }
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.keys[slot] != EMPTY) {
+                add(wordMap[other.keys[slot]], other.counts[slot]);
+            }
+        }
+    }
+
+    /**
+     * Replaces all ids using the given translation table.
+     */
+    void remap(int[] wordMap) {
+        if (keys == null) {
+            return;
+        }
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length];
+        Arrays.fill(keys, EMPTY);
+        counts = new int[oldKeys.length];
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                insert(wordMap[oldKeys[slot]], oldCounts[slot]);
+            }
+        }
+    }
+
+    /**
+     * Writes the number of distinct words followed by each word and its count.
+     */
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(distinct);
+        if (keys == null) {
+            return;
+        }
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                out.writeInt(keys[slot]);
+                out.writeInt(counts[slot]);
+            }
+        }
+    }
+
+    /**
+     * Adds the counts written by {@link #write(DataOutputStream)}.
+     */
+    void read(ByteBuffer in) {
+        int size = in.getInt();
+        for (int i = 0; i < size; i++) {
+            int word = in.getInt();
+            add(word, in.getInt());
+        }
+    }
+
+    private void add(int word, int count) {
+        if (keys == null) {
+            keys = new int[4];
+            Arrays.fill(keys, EMPTY);
+            counts = new int[4];
+        }
+        total += count;
+        int mask = keys.length - 1;
+        for (int slot = hash(word) & mask;; slot = (slot + 1) & mask) {
+            if (keys[slot] == word) {
+                counts[slot] += count;
+                return;
+            }
+            if (keys[slot] == EMPTY) {
+                keys[slot] = word;
+                counts[slot] = count;
+                distinct++;
+                if (distinct * 4 > keys.length * 3) {
+                    grow();
+                }
+                return;
+            }
+        }
+    }
+
+    private void delete(int slot) {
+        // shift back the entries that would no longer be reachable
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int next = (slot + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                counts[hole] = counts[next];
+                hole = next;
+            }
+        }
+        keys[hole] = EMPTY;
+        counts[hole] = 0;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        counts = new int[keys.length];
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                insert(oldKeys[slot], oldCounts[slot]);
+            }
+        }
+    }
+
+    private void insert(int word, int count) {
+        int mask = keys.length - 1;
+        int slot = hash(word) & mask;
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = word;
+        counts[slot] = count;
+    }
+
+    private static int hash(int word) {
+        int h = word * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
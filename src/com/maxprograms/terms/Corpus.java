@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Resolves the XLIFF files of a corpus. A corpus is given as a directory, whose
+ * <code>.xlf</code> and <code>.xliff</code> files are used including those in
+ * subdirectories, as a glob pattern like <code>project/**&#47;*.xlf</code>, as
+ * a single XLIFF file, or as a text file that lists one XLIFF file per line.
+ * Relative paths in a list are resolved against the folder of the list; empty
+ * lines and lines that start with <code>#</code> are ignored.
+ */
+final class Corpus {
+
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    private Corpus() {
+        // do not instantiate
+    }
+
+    /**
+     * @return the absolute paths of the files in the corpus, sorted by path
+     *         unless they come from a list
+     */
+    static List<String> files(String corpus) throws IOException {
+        if (isGlob(corpus)) {
+            return glob(corpus);
+        }
+        Path path = Path.of(corpus).toAbsolutePath();
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> stream = Files.walk(path)) {
+                return stream.filter(file -> Files.isRegularFile(file) && isXliff(file)).map(Path::toString)
+                        .sorted().toList();
+            }
+        }
+        if (isXliff(path)) {
+            return List.of(path.toString());
+        }
+        List<String> result = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            line = line.strip();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                result.add(path.resolveSibling(line).normalize().toString());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the directory where a glob pattern starts, the directory itself
+     *         or the list file, used to name the default output file
+     */
+    static File base(String corpus) {
+        if (isGlob(corpus)) {
+            return Path.of(globBase(corpus)).toAbsolutePath().normalize().toFile();
+        }
+        return new File(corpus).getAbsoluteFile();
+    }
+
+    private static boolean isGlob(String corpus) {
+        for (int i = 0; i < corpus.length(); i++) {
+            if (GLOB_CHARACTERS.indexOf(corpus.charAt(i)) != -1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the position of the last separator before the first glob
+     *         character, or -1 if the pattern starts in the current directory
+     */
+    private static int globSeparator(String pattern) {
+        int first = 0;
+        while (GLOB_CHARACTERS.indexOf(pattern.charAt(first)) == -1) {
+            first++;
+        }
+        return Math.max(pattern.lastIndexOf('/', first), pattern.lastIndexOf(File.separatorChar, first));
+    }
+
+    private static String globBase(String pattern) {
+        int separator = globSeparator(pattern);
+        return separator == -1 ? "." : pattern.substring(0, separator + 1);
+    }
+
+    private static List<String> glob(String pattern) throws IOException {
+        String relative = pattern.substring(globSeparator(pattern) + 1);
+        if (File.separatorChar != '/') {
+            relative = relative.replace(File.separatorChar, '/');
+        }
+        Path root = Path.of(globBase(pattern)).toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + relative);
+        try (Stream<Path> stream = Files.walk(root)) {
+            return stream.filter(file -> Files.isRegularFile(file) && matcher.matches(root.relativize(file)))
+                    .map(Path::toString).sorted().toList();
+        }
+    }
+
+    private static boolean isXliff(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".xlf") || name.endsWith(".xliff");
+    }
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+
+/**
+ * Writes rows of delimited text. With a comma, values are quoted when needed
+ * and lists are always quoted; with a tab, special characters are escaped with
+ * a backslash. Lists are written as numbers separated by <code>|</code>.
+ */
+class DelimitedWriter implements ResultWriter {
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private Writer writer;
+    private char delimiter;
+
+    DelimitedWriter(String file, Charset charset, boolean byteOrderMark, char delimiter) throws IOException {
+        this.delimiter = delimiter;
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), charset), BUFFER_SIZE);
+        if (byteOrderMark) {
+            writer.write('\uFEFF');
+        }
+    }
+
+    @Override
+    public void writeHeader(String[] keys, String[] labels) throws IOException {
+        writeRow((Object[]) labels);
+    }
+
+    @Override
+    public void writeRow(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(delimiter);
+            }
+            Object value = values[i];
+            if (value instanceof String s) {
+                writer.write(delimiter == ',' ? quote(s) : escape(s));
+            } else if (value instanceof int[] list) {
+                if (delimiter == ',') {
+                    writer.write('"');
+                }
+                for (int j = 0; j < list.length; j++) {
+                    if (j > 0) {
+                        writer.write('|');
+                    }
+                    writer.write(Integer.toString(list[j]));
+                }
+                if (delimiter == ',') {
+                    writer.write('"');
+                }
+            } else if (value instanceof BigDecimal number) {
+                writer.write(number.toPlainString());
+            } else {
+                writer.write(String.valueOf(value));
+            }
+        }
+        writer.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') != -1 || value.indexOf('"') != -1 || value.indexOf('\n') != -1) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private static String escape(String value) {
+        if (value.indexOf('\t') == -1 && value.indexOf('\n') == -1 && value.indexOf('\r') == -1
+                && value.indexOf('\\') == -1) {
+            return value;
+        }
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+}
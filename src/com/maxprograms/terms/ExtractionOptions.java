@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+public class ExtractionOptions {
+
+    private int maxTermLength;
+    private int minFrequency;
+    private double maxScore;
+    private boolean relevant;
+    private boolean cacheTokens;
+    private int threads;
+    private long candidateMemory;
+
+    public ExtractionOptions() {
+        this(3, 3, 10.0, false);
+    }
+
+    public ExtractionOptions(int maxTermLength, int minFrequency, double maxScore, boolean relevant) {
+        this.maxTermLength = maxTermLength;
+        this.minFrequency = minFrequency;
+        this.maxScore = maxScore;
+        this.relevant = relevant;
+        this.cacheTokens = true;
+        this.threads = 1;
+    }
+
+    public int getMaxTermLength() {
+        return maxTermLength;
+    }
+
+    public void setMaxTermLength(int maxTermLength) {
+        this.maxTermLength = maxTermLength;
+    }
+
+    public int getMinFrequency() {
+        return minFrequency;
+    }
+
+    public void setMinFrequency(int minFrequency) {
+        this.minFrequency = minFrequency;
+    }
+
+    public double getMaxScore() {
+        return maxScore;
+    }
+
+    public void setMaxScore(double maxScore) {
+        this.maxScore = maxScore;
+    }
+
+    public boolean isRelevant() {
+        return relevant;
+    }
+
+    public void setRelevant(boolean relevant) {
+        this.relevant = relevant;
+    }
+
+    public boolean isCacheTokens() {
+        return cacheTokens;
+    }
+
+    /**
+     * When enabled (the default) the tokens found while computing statistics
+     * are kept in memory and reused for candidate generation. Disabling the
+     * cache segments every sentence again, using less memory and more CPU.
+     */
+    public void setCacheTokens(boolean cacheTokens) {
+        this.cacheTokens = cacheTokens;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the number of threads used for sentence segmentation, word
+     * segmentation and statistics. The result is the same for any value; 1
+     * (the default) processes everything in the calling thread.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public long getCandidateMemory() {
+        return candidateMemory;
+    }
+
+    /**
+     * Sets the approximate number of bytes that multi-word candidates may use
+     * while they are counted. When the limit is reached, counts are written to
+     * temporary files and merged at the end, keeping only candidates that
+     * reach the minimum frequency. The default, 0, keeps all candidates in
+     * memory.
+     */
+    public void setCandidateMemory(long candidateMemory) {
+        this.candidateMemory = candidateMemory;
+    }
+}
@@ -0,0 +1,688 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.text.BreakIterator;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Term extraction over a corpus that changes while it is being used. Segments
+ * are added, replaced or removed one at a time and word statistics are updated
+ * in place; ranked terms are computed on demand by {@link #snapshot(int)}.
+ * <p>
+ * Sentences are ordered by arrival, so a replaced segment moves to the end of
+ * the corpus. Scores are only recomputed for terms whose statistics changed
+ * since the previous snapshot or whose median sentence moved because an
+ * earlier sentence was removed, or for all terms when a corpus wide value used
+ * by the features (sentence count, mean, deviation or maximum frequency)
+ * changed. Each candidate is scored once, from its total frequency and the
+ * scores of its words as single word candidates, as in a batch extraction.
+ * <p>
+ * The statistics can be saved to an index file with {@link #save(File)} and
+ * reopened with {@link #open(File, ExtractionOptions)}, so a corpus that
+ * changes little between runs only needs {@link #ingest(List)} to process the
+ * segments that are new or whose text changed.
+ */
+public class IncrementalTermExtractor {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private String language;
+    private Locale locale;
+    private Set<String> stopWords;
+    private BreakIterator sentenceIterator;
+    private ExtractionOptions options;
+    private TermStatistics statistics;
+
+    private Map<String, SegmentEntry> segments;
+    private List<SentenceTokens> sentenceTokens;
+    private LiveSentences live;
+    private Map<Long, Phrase> phrases;
+    private int[] candidateUses;
+    private double[] wordScores;
+    private BitSet dirtyWords;
+
+    private boolean scored;
+    private int lowestRemoved = Integer.MAX_VALUE;
+    private int lastSentences;
+    private int lastMaxFrequency;
+    private double lastMean;
+    private double lastDeviation;
+
+    /**
+     * Sentences of a segment and a hash of the text they were built from.
+     */
+    private record SegmentEntry(int[] sentences, long hash) {
+    }
+
+    /**
+     * A multi-word candidate, found by the hash of its word ids. Phrases whose
+     * hashes collide are chained through <code>next</code>. The text is taken
+     * from the first occurrence in the corpus.
+     */
+    private static class Phrase {
+        Term term;
+        int[] words;
+        boolean[] stopWords;
+        long hash;
+        Phrase next;
+        boolean dirty;
+
+        Phrase(Term term, int[] words, boolean[] stopWords, long hash) {
+            this.term = term;
+            this.words = words;
+            this.stopWords = stopWords;
+            this.hash = hash;
+        }
+
+        boolean matches(SentenceTokens tokens, int start) {
+            for (int i = 0; i < words.length; i++) {
+                if (words[i] != tokens.word(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Keeps track of the sentences still in the corpus. A Fenwick tree over
+     * sentence numbers gives the position of a sentence among the remaining
+     * ones, which is the index it would have in a batch extraction.
+     */
+    private static class LiveSentences {
+
+        private BitSet present = new BitSet();
+        private int[] tree = new int[1025];
+        private int count;
+
+        void add(int sentence) {
+            if (sentence + 1 >= tree.length) {
+                tree = new int[Math.max(tree.length * 2, sentence + 2)];
+                present.stream().forEach(s -> update(s, 1));
+            }
+            present.set(sentence);
+            update(sentence, 1);
+            count++;
+        }
+
+        void remove(int sentence) {
+            present.clear(sentence);
+            update(sentence, -1);
+            count--;
+        }
+
+        int count() {
+            return count;
+        }
+
+        /**
+         * @return the number of remaining sentences before the given one
+         */
+        int rank(int sentence) {
+            int result = 0;
+            for (int i = sentence; i > 0; i -= i & -i) {
+                result += tree[i];
+            }
+            return result;
+        }
+
+        private void update(int sentence, int delta) {
+            for (int i = sentence + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+    }
+
+    public IncrementalTermExtractor(String language, ExtractionOptions options) throws IOException {
+        this.options = options;
+        this.language = language;
+        locale = Locale.forLanguageTag(language);
+        stopWords = StopWords.getStopWords(language);
+        sentenceIterator = BreakIterator.getSentenceInstance(locale);
+        statistics = new TermStatistics(locale, stopWords, false);
+        segments = new HashMap<>();
+        sentenceTokens = new ArrayList<>();
+        live = new LiveSentences();
+        phrases = new HashMap<>();
+        candidateUses = new int[64];
+        wordScores = new double[64];
+        dirtyWords = new BitSet();
+    }
+
+    /**
+     * Adds a segment to the corpus, replacing the text of an existing segment
+     * with the same id.
+     */
+    public synchronized void addSegment(String id, String text) {
+        addSegment(id, text, hash(text));
+    }
+
+    /**
+     * Adds a segment unless a segment with the same id and text is already in
+     * the corpus.
+     *
+     * @return true if the segment was added or replaced
+     */
+    public synchronized boolean updateSegment(String id, String text) {
+        long hash = hash(text);
+        SegmentEntry entry = segments.get(id);
+        if (entry != null && entry.hash() == hash) {
+            return false;
+        }
+        addSegment(id, text, hash);
+        return true;
+    }
+
+    private void addSegment(String id, String text, long hash) {
+        if (segments.containsKey(id)) {
+            removeSegment(id);
+        }
+        List<String> sentences = new ArrayList<>();
+        TermExtractor.buildSentences(sentenceIterator, 0, text, sentences, new ArrayList<>());
+        int[] numbers = new int[sentences.size()];
+        for (int i = 0; i < numbers.length; i++) {
+            SentenceTokens tokens = statistics.tokenize(TermExtractor.getChunks(sentences.get(i)));
+            int sentence = sentenceTokens.size();
+            sentenceTokens.add(tokens);
+            live.add(sentence);
+            statistics.add(tokens, sentence);
+            countCandidates(tokens, sentence, true);
+            numbers[i] = sentence;
+        }
+        segments.put(id, new SegmentEntry(numbers, hash));
+    }
+
+    /**
+     * Removes a segment from the corpus. Unknown ids are ignored.
+     */
+    public synchronized void removeSegment(String id) {
+        SegmentEntry entry = segments.remove(id);
+        if (entry == null) {
+            return;
+        }
+        BitSet removedWords = new BitSet();
+        for (int sentence : entry.sentences()) {
+            SentenceTokens tokens = sentenceTokens.get(sentence);
+            statistics.remove(tokens, sentence);
+            countCandidates(tokens, sentence, false);
+            for (int p = 0; p < tokens.size(); p++) {
+                removedWords.set(tokens.word(p));
+            }
+            sentenceTokens.set(sentence, null);
+            live.remove(sentence);
+            lowestRemoved = Math.min(lowestRemoved, sentence);
+        }
+        List<Term> words = statistics.getTerms();
+        for (int w = removedWords.nextSetBit(0); w >= 0; w = removedWords.nextSetBit(w + 1)) {
+            if (words.get(w).getTermFrequency() > 0) {
+                refreshText(words.get(w), w);
+            }
+        }
+    }
+
+    /**
+     * Takes the text of a word from its first occurrence in the corpus, which
+     * changes when the sentence it came from is removed.
+     */
+    private void refreshText(Term term, int word) {
+        SentenceTokens tokens = sentenceTokens.get(term.getOffsetSentences().get(0));
+        for (int p = 0; p < tokens.size(); p++) {
+            if (tokens.word(p) == word) {
+                term.setText(statistics.getForms().get(tokens.form(p)));
+                return;
+            }
+        }
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    /**
+     * Brings the corpus in line with the source text of the given XLIFF files.
+     * Segments are identified by the path of their file and their id in it;
+     * only new segments and segments whose text changed are processed, and
+     * segments that are not in the files any more are removed.
+     *
+     * @return the number of segments added, changed or removed
+     */
+    public synchronized int ingest(List<String> xliffFiles) throws IOException {
+        Set<String> seen = new HashSet<>();
+        int changes = 0;
+        for (String xliffFile : xliffFiles) {
+            String path = new File(xliffFile).getAbsolutePath();
+            try (XliffReader reader = new XliffReader(xliffFile)) {
+                String srcLang = reader.getSrcLang();
+                if (!locale.getLanguage().equals(Locale.forLanguageTag(srcLang).getLanguage())) {
+                    MessageFormat mf = new MessageFormat(Messages.getString("TermExtractor.18"));
+                    throw new IOException(mf.format(new String[] { xliffFile, srcLang, language }));
+                }
+                Segment segment = reader.nextSegment();
+                while (segment != null) {
+                    String id = path + '#' + reader.getSegmentId();
+                    seen.add(id);
+                    if (updateSegment(id, segment.source() != null ? segment.source() : "")) {
+                        changes++;
+                    }
+                    segment = reader.nextSegment();
+                }
+            }
+        }
+        for (String id : new ArrayList<>(segments.keySet())) {
+            if (!seen.contains(id)) {
+                removeSegment(id);
+                changes++;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Saves the statistics of the corpus to an index file, replacing it if it
+     * exists. Sentences of removed segments are left out, so the remaining
+     * ones are numbered consecutively in the file.
+     */
+    public synchronized void save(File file) throws IOException {
+        int[] sentenceMap = new int[sentenceTokens.size()];
+        int count = 0;
+        for (int i = 0; i < sentenceMap.length; i++) {
+            sentenceMap[i] = sentenceTokens.get(i) != null ? count++ : -1;
+        }
+        int sentences = count;
+        int words = statistics.getTerms().size();
+        IndexFile.write(file, out -> {
+            IndexFile.writeString(out, language);
+            out.writeInt(options.getMaxTermLength());
+            statistics.write(out, sentenceMap);
+            out.writeInt(sentences);
+            for (SentenceTokens tokens : sentenceTokens) {
+                if (tokens != null) {
+                    tokens.write(out);
+                }
+            }
+            out.writeInt(segments.size());
+            for (Map.Entry<String, SegmentEntry> entry : segments.entrySet()) {
+                IndexFile.writeString(out, entry.getKey());
+                out.writeLong(entry.getValue().hash());
+                int[] numbers = entry.getValue().sentences();
+                out.writeInt(numbers.length);
+                for (int sentence : numbers) {
+                    out.writeInt(sentenceMap[sentence]);
+                }
+            }
+            out.writeInt(words);
+            IndexFile.writeInts(out, candidateUses, words);
+            List<Phrase> list = phrases();
+            out.writeInt(list.size());
+            for (Phrase phrase : list) {
+                phrase.term.write(out, sentenceMap);
+                out.writeInt(phrase.words.length);
+                for (int i = 0; i < phrase.words.length; i++) {
+                    out.writeInt(phrase.words[i]);
+                    out.writeBoolean(phrase.stopWords[i]);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reopens an index saved by {@link #save(File)}. Candidates are counted
+     * again only when the maximum term length of the options differs from the
+     * one used when the index was saved.
+     */
+    public static IncrementalTermExtractor open(File file, ExtractionOptions options) throws IOException {
+        ByteBuffer in = IndexFile.map(file);
+        try {
+            IncrementalTermExtractor extractor = new IncrementalTermExtractor(IndexFile.readString(in), options);
+            extractor.read(in);
+            return extractor;
+        } catch (BufferUnderflowException e) {
+            throw IndexFile.truncated(file, e);
+        }
+    }
+
+    private void read(ByteBuffer in) {
+        int maxTermLength = in.getInt();
+        statistics = TermStatistics.read(in, locale, stopWords);
+        int sentences = in.getInt();
+        for (int sentence = 0; sentence < sentences; sentence++) {
+            sentenceTokens.add(SentenceTokens.read(in));
+            live.add(sentence);
+        }
+        int segmentCount = in.getInt();
+        for (int i = 0; i < segmentCount; i++) {
+            String id = IndexFile.readString(in);
+            long hash = in.getLong();
+            segments.put(id, new SegmentEntry(IndexFile.readInts(in, in.getInt()), hash));
+        }
+        int words = IndexFile.readLength(in, Integer.BYTES);
+        ensureCapacity(words);
+        System.arraycopy(IndexFile.readInts(in, words), 0, candidateUses, 0, words);
+        int phraseCount = in.getInt();
+        for (int i = 0; i < phraseCount; i++) {
+            Term term = Term.read(in);
+            // each word is stored with its stop word flag
+            int length = IndexFile.readLength(in, Integer.BYTES + 1);
+            int[] phraseWords = new int[length];
+            boolean[] stop = new boolean[length];
+            long hash = 0;
+            for (int w = 0; w < length; w++) {
+                phraseWords[w] = in.getInt();
+                stop[w] = in.get() != 0;
+                hash = CandidateRuns.extend(hash, phraseWords[w]);
+            }
+            addPhrase(new Phrase(term, phraseWords, stop, hash));
+        }
+        if (maxTermLength != options.getMaxTermLength()) {
+            phrases.clear();
+            Arrays.fill(candidateUses, 0);
+            for (int sentence = 0; sentence < sentences; sentence++) {
+                countCandidates(sentenceTokens.get(sentence), sentence, true);
+            }
+        }
+    }
+
+    /**
+     * Ranks the terms of the current corpus, applying the filters and the
+     * deduplication of a batch extraction.
+     *
+     * @param topK maximum number of terms to return
+     * @return copies of the best terms, sorted by score
+     */
+    public synchronized List<Term> snapshot(int topK) {
+        List<Term> words = statistics.getTerms();
+        ensureCapacity(words.size());
+        rescore(words);
+
+        List<Term> candidates = new ArrayList<>();
+        for (Term term : words) {
+            if (term.getTermFrequency() > 0) {
+                candidates.add(term);
+            }
+        }
+        for (Phrase phrase : phrases()) {
+            candidates.add(phrase.term);
+        }
+        if (options.isRelevant()) {
+            candidates.removeIf(term -> term.getRelevance() < 1.0);
+        }
+        candidates.removeIf(term -> term.getScore() > options.getMaxScore());
+        candidates.removeIf(term -> stopWords.contains(term.getText().toLowerCase(locale)));
+        candidates.removeIf(term -> term.getTermFrequency() < options.getMinFrequency());
+        candidates.removeIf(term -> TermExtractor.isNumber(term.getText()));
+        candidates.removeIf(term -> term.getText().length() < 2);
+
+        List<Term> ranked = TermExtractor.topTerms(TermExtractor.deduplicate(candidates, locale), topK);
+        List<Term> result = new ArrayList<>();
+        for (Term term : ranked) {
+            result.add(term.snapshot());
+        }
+        return result;
+    }
+
+    private void rescore(List<Term> words) {
+        int maxFrequency = 0;
+        int sumFrequency = 0;
+        List<Integer> frequencies = new ArrayList<>();
+        for (Term term : words) {
+            int frequency = term.getTermFrequency();
+            if (frequency > 0) {
+                frequencies.add(frequency);
+                sumFrequency += frequency;
+                maxFrequency = Math.max(maxFrequency, frequency);
+            }
+        }
+        double meanFrequency = frequencies.isEmpty() ? 0 : (double) sumFrequency / frequencies.size();
+        double sDeviation = TermExtractor.standardDeviation(frequencies.toArray(new Integer[frequencies.size()]));
+        boolean changed = !scored || live.count() != lastSentences || maxFrequency != lastMaxFrequency
+                || meanFrequency != lastMean || sDeviation != lastDeviation;
+
+        BitSet rescored = dirtyWords;
+        if (changed) {
+            rescored = new BitSet();
+            rescored.set(0, words.size());
+        } else if (lowestRemoved != Integer.MAX_VALUE) {
+            // a removed sentence lowers the rank of every later sentence
+            for (int w = 0; w < words.size(); w++) {
+                SentenceOffsets offsets = words.get(w).getOffsetSentences();
+                if (!offsets.isEmpty() && offsets.get(offsets.size() / 2) > lowestRemoved) {
+                    rescored.set(w);
+                }
+            }
+        }
+        for (int w = rescored.nextSetBit(0); w >= 0; w = rescored.nextSetBit(w + 1)) {
+            Term term = words.get(w);
+            if (term.getTermFrequency() == 0) {
+                continue;
+            }
+            term.calcFrequency(meanFrequency, sDeviation);
+            term.calcDifferent(live.count());
+            term.calcRelatednes(maxFrequency);
+            term.calcTermScore(medianRank(term.getOffsetSentences()));
+            wordScores[w] = term.getScore();
+            if (candidateUses[w] > 0) {
+                term.setScore(combinedScore(new int[] { w }, new boolean[1], term.getTermFrequency()));
+                wordScores[w] = term.getScore();
+            }
+        }
+        for (Phrase phrase : phrases()) {
+            boolean update = phrase.dirty;
+            for (int i = 0; !update && i < phrase.words.length; i++) {
+                update = rescored.get(phrase.words[i]);
+            }
+            if (update) {
+                phrase.term.setScore(combinedScore(phrase.words, phrase.stopWords, phrase.term.getTermFrequency()));
+                phrase.dirty = false;
+            }
+        }
+        dirtyWords = new BitSet();
+        lowestRemoved = Integer.MAX_VALUE;
+        scored = true;
+        lastSentences = live.count();
+        lastMaxFrequency = maxFrequency;
+        lastMean = meanFrequency;
+        lastDeviation = sDeviation;
+    }
+
+    private double medianRank(SentenceOffsets offsets) {
+        int size = offsets.size();
+        if (size % 2 == 0) {
+            return (live.rank(offsets.get(size / 2 - 1)) + live.rank(offsets.get(size / 2))) / 2.0;
+        }
+        return live.rank(offsets.get(size / 2));
+    }
+
+    private double combinedScore(int[] words, boolean[] stop, int termFrequency) {
+        double prod = 1;
+        double sum = 0;
+        if (termFrequency == 0) {
+            termFrequency = 1;
+        }
+        for (int i = 0; i < words.length; i++) {
+            if (!stop[i]) {
+                prod *= wordScores[words[i]];
+                sum += wordScores[words[i]];
+            } else {
+                double probBefore = i > 0 ? wordScores[words[i - 1]] : 0;
+                double probAfter = i < words.length - 1 ? wordScores[words[i + 1]] : 0;
+                // words that start no candidate keep their raw score, which can exceed 1
+                double bigramProbability = Math.min(1, probBefore * probAfter);
+                prod *= 1 + (1 - bigramProbability);
+                sum += (1 - bigramProbability);
+            }
+        }
+        return prod / (termFrequency * (sum + 1));
+    }
+
+    private void countCandidates(SentenceTokens tokens, int sentence, boolean add) {
+        ensureCapacity(statistics.getTerms().size());
+        int maxTermLength = options.getMaxTermLength();
+        for (int p = 0; p < tokens.size(); p++) {
+            dirtyWords.set(tokens.word(p));
+        }
+        for (int c = 0; c < tokens.chunkCount(); c++) {
+            int start = tokens.chunkStart(c);
+            int end = tokens.chunkEnd(c);
+            for (int h = start; h < end; h++) {
+                if (!tokens.is(h, SentenceTokens.RELATABLE) || tokens.is(h, SentenceTokens.STOP_WORD)) {
+                    continue;
+                }
+                long hash = 0;
+                for (int k = 0; k < maxTermLength && (h + k) < end; k++) {
+                    hash = CandidateRuns.extend(hash, tokens.word(h + k));
+                    if (tokens.is(h + k, SentenceTokens.STOP_WORD)) {
+                        continue;
+                    }
+                    if (k == 0) {
+                        candidateUses[tokens.word(h)] += add ? 1 : -1;
+                        continue;
+                    }
+                    Phrase phrase = findPhrase(hash, tokens, h, k + 1);
+                    if (add) {
+                        if (phrase == null) {
+                            int[] words = new int[k + 1];
+                            boolean[] stop = new boolean[k + 1];
+                            for (int t = 0; t <= k; t++) {
+                                words[t] = tokens.word(h + t);
+                                stop[t] = tokens.is(h + t, SentenceTokens.STOP_WORD);
+                            }
+                            phrase = new Phrase(new Term(phraseText(tokens, h, k + 1)), words, stop, hash);
+                            addPhrase(phrase);
+                        }
+                        phrase.term.increaseFrequency();
+                        phrase.term.setSentence(sentence);
+                    } else {
+                        boolean first = phrase.term.getOffsetSentences().get(0) == sentence;
+                        phrase.term.decreaseFrequency();
+                        phrase.term.removeSentence(sentence);
+                        if (phrase.term.getTermFrequency() == 0) {
+                            removePhrase(phrase);
+                        } else if (first) {
+                            refreshText(phrase);
+                        }
+                    }
+                    phrase.dirty = true;
+                }
+            }
+        }
+    }
+
+    private Phrase findPhrase(long hash, SentenceTokens tokens, int start, int length) {
+        for (Phrase phrase = phrases.get(hash); phrase != null; phrase = phrase.next) {
+            if (phrase.words.length == length && phrase.matches(tokens, start)) {
+                return phrase;
+            }
+        }
+        return null;
+    }
+
+    private void addPhrase(Phrase phrase) {
+        phrase.next = phrases.put(phrase.hash, phrase);
+    }
+
+    private void removePhrase(Phrase phrase) {
+        Phrase head = phrases.get(phrase.hash);
+        if (head == phrase) {
+            if (phrase.next == null) {
+                phrases.remove(phrase.hash);
+            } else {
+                phrases.put(phrase.hash, phrase.next);
+            }
+            return;
+        }
+        Phrase previous = head;
+        while (previous.next != phrase) {
+            previous = previous.next;
+        }
+        previous.next = phrase.next;
+    }
+
+    private List<Phrase> phrases() {
+        List<Phrase> result = new ArrayList<>();
+        for (Phrase head : phrases.values()) {
+            for (Phrase phrase = head; phrase != null; phrase = phrase.next) {
+                result.add(phrase);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Takes the text of a phrase from its first occurrence in the earliest
+     * sentence that still contains it, after the sentence the text came from
+     * was removed.
+     */
+    private void refreshText(Phrase phrase) {
+        SentenceTokens tokens = sentenceTokens.get(phrase.term.getOffsetSentences().get(0));
+        for (int c = 0; c < tokens.chunkCount(); c++) {
+            int end = tokens.chunkEnd(c) - phrase.words.length;
+            for (int h = tokens.chunkStart(c); h <= end; h++) {
+                if (phrase.matches(tokens, h)) {
+                    phrase.term.setText(phraseText(tokens, h, phrase.words.length));
+                    return;
+                }
+            }
+        }
+    }
+
+    private String phraseText(SentenceTokens tokens, int start, int length) {
+        Vocabulary forms = statistics.getForms();
+        StringBuilder sb = new StringBuilder();
+        for (int t = start; t < start + length; t++) {
+            sb.append(forms.get(tokens.form(t)));
+            sb.append(' ');
+        }
+        return sb.toString().strip();
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the text, used to detect segments that changed.
+     */
+    private static long hash(String text) {
+        long hash = FNV_OFFSET;
+        if (text == null) {
+            return hash;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > candidateUses.length) {
+            int length = Math.max(size, candidateUses.length * 2);
+            candidateUses = Arrays.copyOf(candidateUses, length);
+            wordScores = Arrays.copyOf(wordScores, length);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+
+/**
+ * Reads and writes the file of a statistics index. The file is written as a
+ * stream of big-endian values and read back through a read-only memory
+ * mapping, so reopening an index costs little more than copying its arrays.
+ * Strings are stored as their length followed by their UTF-16 characters.
+ */
+final class IndexFile {
+
+    // "TRMS"
+    private static final int MAGIC = 0x54524D53;
+    private static final int VERSION = 2;
+    private static final int BUFFER = 65536;
+
+    interface Content {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private IndexFile() {
+        // do not instantiate
+    }
+
+    /**
+     * Writes the content to a temporary file that replaces the index when
+     * complete, so an interrupted save leaves the previous index intact.
+     */
+    static void write(File file, Content content) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        File temp = File.createTempFile(file.getName(), ".tmp", parent);
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temp), BUFFER))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                content.write(out);
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * @return the content of the index, positioned after the header
+     */
+    static ByteBuffer map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(message(file));
+            }
+            ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, size);
+            if (size < 2 * Integer.BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException(message(file));
+            }
+            return buffer;
+        }
+    }
+
+    /**
+     * @return the exception to throw when an index ends before all its values
+     *         have been read
+     */
+    static IOException truncated(File file, BufferUnderflowException e) {
+        return new IOException(message(file), e);
+    }
+
+    private static String message(File file) {
+        MessageFormat mf = new MessageFormat(Messages.getString("IndexFile.1"));
+        return mf.format(new String[] { file.getAbsolutePath() });
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeInt(value.length());
+        out.writeChars(value);
+    }
+
+    /**
+     * Reads the length of an array of values of the given size in bytes.
+     *
+     * @throws BufferUnderflowException if the length is negative or the values
+     *                                  would end after the index, so a damaged
+     *                                  index is reported as truncated before
+     *                                  anything is allocated
+     */
+    static int readLength(ByteBuffer in, int elementSize) {
+        return checkLength(in, in.getInt(), elementSize);
+    }
+
+    private static int checkLength(ByteBuffer in, int length, int elementSize) {
+        if (length < 0 || length > in.remaining() / elementSize) {
+            throw new BufferUnderflowException();
+        }
+        return length;
+    }
+
+    static String readString(ByteBuffer in) {
+        char[] chars = new char[readLength(in, Character.BYTES)];
+        in.asCharBuffer().get(chars);
+        in.position(in.position() + chars.length * Character.BYTES);
+        return new String(chars);
+    }
+
+    static void writeInts(DataOutputStream out, int[] values, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            out.writeInt(values[i]);
+        }
+    }
+
+    static int[] readInts(ByteBuffer in, int length) {
+        int[] values = new int[checkLength(in, length, Integer.BYTES)];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + length * Integer.BYTES);
+        return values;
+    }
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import org.json.JSONObject;
+
+/**
+ * Writes one UTF-8 JSON object per line. Numbers that are not finite are
+ * written as <code>null</code>.
+ */
+class JsonLinesWriter implements ResultWriter {
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private Writer writer;
+    private String[] names;
+
+    JsonLinesWriter(String file) throws IOException {
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8),
+                BUFFER_SIZE);
+    }
+
+    @Override
+    public void writeHeader(String[] keys, String[] labels) throws IOException {
+        names = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            names[i] = JSONObject.quote(keys[i]);
+        }
+    }
+
+    @Override
+    public void writeRow(Object... values) throws IOException {
+        writer.write('{');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(names[i]);
+            writer.write(':');
+            Object value = values[i];
+            if (value instanceof String s) {
+                JSONObject.quote(s, writer);
+            } else if (value instanceof int[] list) {
+                writer.write('[');
+                for (int j = 0; j < list.length; j++) {
+                    if (j > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(Integer.toString(list[j]));
+                }
+                writer.write(']');
+            } else if (value instanceof BigDecimal number) {
+                writer.write(number.toPlainString());
+            } else if (value instanceof Double d && (d.isNaN() || d.isInfinite())) {
+                writer.write("null");
+            } else {
+                writer.write(String.valueOf(value));
+            }
+        }
+        writer.write("}\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -12,6 +12,8 @@ package com.maxprograms.terms;
 
 public class LevenshteinDistance {
 
+    private static final ThreadLocal<int[][]> ROWS = ThreadLocal.withInitial(() -> new int[2][64]);
+
     private LevenshteinDistance() {
         // do not instantiate
     }
@@ -35,6 +37,81 @@ public class LevenshteinDistance {
         return matrix[x.length()][y.length()];
     }
 
+    /**
+     * Computes the edit distance between two strings only up to a limit. Cells
+     * farther than <code>max</code> from the diagonal are never evaluated and the
+     * computation stops as soon as a whole row exceeds the limit.
+     * 
+     * @param x   first string
+     * @param y   second string
+     * @param max highest distance of interest, not negative
+     * @return the edit distance when it is at most <code>max</code>, otherwise
+     *         <code>max + 1</code>
+     */
+    public static int distanceWithin(String x, String y, int max) {
+        if (max < 0) {
+            throw new IllegalArgumentException("max must not be negative");
+        }
+        int limit = max + 1;
+        int xEnd = x.length();
+        int yEnd = y.length();
+        if (Math.abs(xEnd - yEnd) > max) {
+            return limit;
+        }
+        // common prefix and suffix do not change the distance
+        int start = 0;
+        while (start < xEnd && start < yEnd && x.charAt(start) == y.charAt(start)) {
+            start++;
+        }
+        while (xEnd > start && yEnd > start && x.charAt(xEnd - 1) == y.charAt(yEnd - 1)) {
+            xEnd--;
+            yEnd--;
+        }
+        int n = xEnd - start;
+        int m = yEnd - start;
+        if (n == 0 || m == 0) {
+            return Math.min(n + m, limit);
+        }
+        int[][] rows = ROWS.get();
+        if (rows[0].length < m + 1) {
+            rows[0] = new int[Math.max(m + 1, rows[0].length * 2)];
+            rows[1] = new int[rows[0].length];
+        }
+        int[] previous = rows[0];
+        int[] current = rows[1];
+        int band = Math.min(m, max);
+        for (int j = 0; j <= band; j++) {
+            previous[j] = j;
+        }
+        if (band < m) {
+            previous[band + 1] = limit;
+        }
+        for (int i = 1; i <= n; i++) {
+            int low = Math.max(1, i - max);
+            int high = Math.min(m, i + max);
+            char c = x.charAt(start + i - 1);
+            current[low - 1] = low == 1 ? Math.min(i, limit) : limit;
+            int rowMin = current[low - 1];
+            for (int j = low; j <= high; j++) {
+                int value = previous[j - 1] + (c == y.charAt(start + j - 1) ? 0 : 1);
+                value = Math.min(value, Math.min(previous[j], current[j - 1]) + 1);
+                value = Math.min(value, limit);
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (high < m) {
+                current[high + 1] = limit;
+            }
+            if (rowMin > max) {
+                return limit;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[m];
+    }
+
     private static int min(int a, int b, int c) {
         int min = Math.min(a, b);
         return Math.min(min, c);
@@ -19,7 +19,8 @@ import java.util.Properties;
 
 public class Messages {
 
-	private static Properties props;
+	// published once loaded, so concurrent callers never see a partial table
+	private static volatile Properties props;
 
 	private Messages() {
 		// do not instantiate this class
@@ -28,7 +29,8 @@ public class Messages {
 	public static String getString(String key) {
 		String resourceName = "terms";
         try {
-            if (props == null) {
+            Properties loaded = props;
+            if (loaded == null) {
                 Locale locale = Locale.getDefault();
                 String language = locale.getLanguage();
                 String extension = "_" + language + ".properties";
@@ -43,12 +45,13 @@ public class Messages {
                 }
                 try (InputStream is = Messages.class.getResourceAsStream(resourceName + extension)) {
                     try (InputStreamReader reader = new InputStreamReader(is, StandardCharsets.UTF_8)) {
-                        props = new Properties();
-                        props.load(reader);
+                        loaded = new Properties();
+                        loaded.load(reader);
                     }
                 }
+                props = loaded;
             }
-            return props.getProperty(key, '!' + key + '!');
+            return loaded.getProperty(key, '!' + key + '!');
         } catch (IOException | NullPointerException e) {
             return '!' + key + '!';
         }
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public enum ResultFormat {
+
+    /**
+     * Comma separated values in UTF-16LE with byte order mark, the original
+     * output format
+     */
+    CSV_UTF16("csv-utf16", "csv", "text/csv; charset=UTF-16LE"),
+    CSV("csv", "csv", "text/csv; charset=UTF-8"),
+    TSV("tsv", "tsv", "text/tab-separated-values; charset=UTF-8"),
+    JSONL("jsonl", "jsonl", "application/jsonl; charset=UTF-8"),
+    TBX("tbx", "tbx", "application/x-tbx+xml; charset=UTF-8");
+
+    private final String name;
+    private final String extension;
+    private final String mediaType;
+
+    ResultFormat(String name, String extension, String mediaType) {
+        this.name = name;
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @return the HTTP content type of the format, including its charset
+     */
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @return the format with the given name, or <code>null</code> if the name
+     *         is not known
+     */
+    public static ResultFormat forName(String name) {
+        for (ResultFormat format : values()) {
+            if (format.name.equals(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    public ResultWriter open(String file) throws IOException {
+        return switch (this) {
+            case CSV_UTF16 -> new DelimitedWriter(file, StandardCharsets.UTF_16LE, true, ',');
+            case CSV -> new DelimitedWriter(file, StandardCharsets.UTF_8, false, ',');
+            case TSV -> new DelimitedWriter(file, StandardCharsets.UTF_8, false, '\t');
+            case JSONL -> new JsonLinesWriter(file);
+            case TBX -> new TbxWriter(file);
+        };
+    }
+}
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes extraction results row by row. Implementations are obtained from
+ * {@link ResultFormat#open(String)}.
+ * <p>
+ * Row values can be strings, numbers or <code>int[]</code> lists; each format
+ * decides how to represent them.
+ */
+public interface ResultWriter extends Closeable {
+
+    /**
+     * Sets the languages of the terms, for formats that record them. Called
+     * before {@link #writeHeader(String[], String[])}; <code>target</code> is
+     * <code>null</code> for monolingual results.
+     */
+    default void setLanguages(String source, String target) {
+        // languages are not written by default
+    }
+
+    /**
+     * Starts the output. Delimited formats write the labels as a header line;
+     * JSON Lines uses the keys as member names.
+     */
+    void writeHeader(String[] keys, String[] labels) throws IOException;
+
+    void writeRow(Object... values) throws IOException;
+}
@@ -0,0 +1,20 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+/**
+ * Plain text of an XLIFF segment. The number is the 1-based position of the
+ * segment in the document; source and target are null when the segment does
+ * not contain them.
+ */
+public record Segment(int number, String state, String source, String target) {
+
+}
@@ -0,0 +1,512 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of segment numbers, organized like a Roaring bitmap. Values
+ * are grouped by their upper 16 bits and the lower 16 bits of each group are
+ * kept in a sorted array, a 65536-bit bitmap or a list of runs, whichever is
+ * smaller. Values are treated as unsigned integers.
+ */
+final class SegmentSet {
+
+    private static final int ARRAY_MAX = 4096;
+
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+
+    SegmentSet() {
+        keys = new char[4];
+        containers = new Container[4];
+    }
+
+    void add(int value) {
+        char high = (char) (value >>> 16);
+        char low = (char) value;
+        int i;
+        if (size > 0 && keys[size - 1] == high) {
+            i = size - 1;
+        } else {
+            i = Arrays.binarySearch(keys, 0, size, high);
+        }
+        if (i >= 0) {
+            containers[i] = containers[i].add(low);
+            return;
+        }
+        i = -i - 1;
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = high;
+        containers[i] = new ArrayContainer().add(low);
+        size++;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int cardinality() {
+        int result = 0;
+        for (int i = 0; i < size; i++) {
+            result += containers[i].cardinality();
+        }
+        return result;
+    }
+
+    SegmentSet and(SegmentSet other) {
+        SegmentSet result = new SegmentSet();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = containers[i].and(other.containers[j]);
+                if (container.cardinality() > 0) {
+                    result.append(keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Converts containers to runs when that representation is smaller.
+     */
+    void runOptimize() {
+        for (int i = 0; i < size; i++) {
+            containers[i] = containers[i].optimize();
+        }
+    }
+
+    void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+
+    int[] toArray() {
+        int[] result = new int[cardinality()];
+        int[] position = new int[1];
+        forEach(value -> result[position[0]++] = value);
+        return result;
+    }
+
+    private void append(char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        keys[size] = key;
+        containers[size] = container;
+        size++;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof SegmentSet other) || size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            int cardinality = containers[i].cardinality();
+            if (keys[i] != other.keys[i] || cardinality != other.containers[i].cardinality()
+                    || containers[i].andCardinality(other.containers[i]) != cardinality) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int[] hash = new int[] { 1 };
+        forEach(value -> hash[0] = 31 * hash[0] + value);
+        return hash[0];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        forEach(value -> {
+            if (!sb.isEmpty()) {
+                sb.append('|');
+            }
+            sb.append(value);
+        });
+        return sb.toString();
+    }
+
+    private abstract static class Container {
+
+        abstract Container add(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        abstract void forEach(int high, IntConsumer consumer);
+
+        /**
+         * Counts how many values of this container are in the other one.
+         */
+        abstract int countIn(Container other);
+
+        /**
+         * Appends the values of this container that are in the other one.
+         */
+        abstract Container retainIn(Container other, Container result);
+
+        int andCardinality(Container other) {
+            if (this instanceof BitmapContainer a && other instanceof BitmapContainer b) {
+                return a.andCardinality(b);
+            }
+            if (this instanceof RunContainer run && other instanceof BitmapContainer bitmap) {
+                return run.countIn(bitmap);
+            }
+            if (this instanceof BitmapContainer bitmap && other instanceof RunContainer run) {
+                return run.countIn(bitmap);
+            }
+            return cardinality() <= other.cardinality() ? countIn(other) : other.countIn(this);
+        }
+
+        Container and(Container other) {
+            if (this instanceof BitmapContainer a && other instanceof BitmapContainer b) {
+                return a.and(b);
+            }
+            Container result = new ArrayContainer();
+            return cardinality() <= other.cardinality() ? retainIn(other, result) : other.retainIn(this, result);
+        }
+
+        Container optimize() {
+            int runs = countRuns();
+            int runBytes = 2 + 4 * runs;
+            int arrayBytes = 2 * cardinality();
+            int bitmapBytes = 8192;
+            if (runBytes < Math.min(arrayBytes, bitmapBytes)) {
+                return RunContainer.from(this, runs);
+            }
+            return this;
+        }
+
+        int countRuns() {
+            int[] state = new int[] { 0, -2 };
+            forEach(0, value -> {
+                if (value != state[1] + 1) {
+                    state[0]++;
+                }
+                state[1] = value;
+            });
+            return state[0];
+        }
+    }
+
+    private static final class ArrayContainer extends Container {
+
+        private char[] values = new char[4];
+        private int cardinality;
+
+        @Override
+        Container add(char value) {
+            int i;
+            if (cardinality == 0 || value > values[cardinality - 1]) {
+                i = cardinality;
+            } else {
+                i = Arrays.binarySearch(values, 0, cardinality, value);
+                if (i >= 0) {
+                    return this;
+                }
+                i = -i - 1;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+            }
+            System.arraycopy(values, i, values, i + 1, cardinality - i);
+            values[i] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < cardinality; i++) {
+                consumer.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        int countIn(Container other) {
+            int result = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i])) {
+                    result++;
+                }
+            }
+            return result;
+        }
+
+        @Override
+        Container retainIn(Container other, Container result) {
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i])) {
+                    result = result.add(values[i]);
+                }
+            }
+            return result;
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+
+        private final long[] words = new long[1024];
+        private int cardinality;
+
+        @Override
+        Container add(char value) {
+            long mask = 1L << value;
+            int i = value >>> 6;
+            if ((words[i] & mask) == 0) {
+                words[i] |= mask;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    consumer.accept(high | (i << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        int countIn(Container other) {
+            if (other instanceof BitmapContainer bitmap) {
+                return andCardinality(bitmap);
+            }
+            int[] count = new int[1];
+            forEach(0, value -> {
+                if (other.contains((char) value)) {
+                    count[0]++;
+                }
+            });
+            return count[0];
+        }
+
+        @Override
+        Container retainIn(Container other, Container result) {
+            Container[] holder = new Container[] { result };
+            forEach(0, value -> {
+                if (other.contains((char) value)) {
+                    holder[0] = holder[0].add((char) value);
+                }
+            });
+            return holder[0];
+        }
+
+        int andCardinality(BitmapContainer other) {
+            int result = 0;
+            for (int i = 0; i < words.length; i++) {
+                result += Long.bitCount(words[i] & other.words[i]);
+            }
+            return result;
+        }
+
+        Container and(BitmapContainer other) {
+            BitmapContainer result = new BitmapContainer();
+            for (int i = 0; i < words.length; i++) {
+                result.words[i] = words[i] & other.words[i];
+                result.cardinality += Long.bitCount(result.words[i]);
+            }
+            if (result.cardinality > ARRAY_MAX) {
+                return result;
+            }
+            Container array = new ArrayContainer();
+            return result.retainIn(result, array);
+        }
+
+        /**
+         * Counts the bits set between two positions, both included.
+         */
+        int countRange(int start, int end) {
+            int first = start >>> 6;
+            int last = end >>> 6;
+            long firstMask = -1L << start;
+            long lastMask = -1L >>> (63 - (end & 63));
+            if (first == last) {
+                return Long.bitCount(words[first] & firstMask & lastMask);
+            }
+            int result = Long.bitCount(words[first] & firstMask);
+            for (int i = first + 1; i < last; i++) {
+                result += Long.bitCount(words[i]);
+            }
+            return result + Long.bitCount(words[last] & lastMask);
+        }
+    }
+
+    private static final class RunContainer extends Container {
+
+        // pairs of run start and run length minus one
+        private final char[] runs;
+        private final int cardinality;
+
+        private RunContainer(char[] runs, int cardinality) {
+            this.runs = runs;
+            this.cardinality = cardinality;
+        }
+
+        static RunContainer from(Container container, int count) {
+            char[] runs = new char[count * 2];
+            int[] state = new int[] { -1, -2 };
+            container.forEach(0, value -> {
+                if (value != state[1] + 1) {
+                    state[0]++;
+                    runs[state[0] * 2] = (char) value;
+                }
+                runs[state[0] * 2 + 1] = (char) (value - runs[state[0] * 2]);
+                state[1] = value;
+            });
+            return new RunContainer(runs, container.cardinality());
+        }
+
+        @Override
+        Container add(char value) {
+            if (contains(value)) {
+                return this;
+            }
+            Container result = new ArrayContainer();
+            for (int r = 0; r < runs.length; r += 2) {
+                for (int v = runs[r]; v <= runs[r] + runs[r + 1]; v++) {
+                    result = result.add((char) v);
+                }
+            }
+            return result.add(value);
+        }
+
+        @Override
+        boolean contains(char value) {
+            int low = 0;
+            int high = runs.length / 2 - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int start = runs[mid * 2];
+                if (value < start) {
+                    high = mid - 1;
+                } else if (value > start + runs[mid * 2 + 1]) {
+                    low = mid + 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int r = 0; r < runs.length; r += 2) {
+                int end = runs[r] + runs[r + 1];
+                for (int v = runs[r]; v <= end; v++) {
+                    consumer.accept(high | v);
+                }
+            }
+        }
+
+        @Override
+        int countIn(Container other) {
+            if (other instanceof BitmapContainer bitmap) {
+                int result = 0;
+                for (int r = 0; r < runs.length; r += 2) {
+                    result += bitmap.countRange(runs[r], runs[r] + runs[r + 1]);
+                }
+                return result;
+            }
+            int result = 0;
+            for (int r = 0; r < runs.length; r += 2) {
+                int end = runs[r] + runs[r + 1];
+                for (int v = runs[r]; v <= end; v++) {
+                    if (other.contains((char) v)) {
+                        result++;
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        Container retainIn(Container other, Container result) {
+            for (int r = 0; r < runs.length; r += 2) {
+                int end = runs[r] + runs[r + 1];
+                for (int v = runs[r]; v <= end; v++) {
+                    if (other.contains((char) v)) {
+                        result = result.add((char) v);
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        Container optimize() {
+            return this;
+        }
+    }
+}
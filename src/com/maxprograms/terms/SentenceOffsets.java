@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Indexes of the sentences where a term appears, one entry per occurrence,
+ * stored in a growable <code>int</code> array. Sentences are normally added in
+ * increasing order, which lets the median be read directly; otherwise the
+ * entries are sorted the first time the median is needed.
+ */
+public class SentenceOffsets {
+
+    private int[] values;
+    private int size;
+    private boolean sorted;
+
+    public SentenceOffsets() {
+        values = new int[4];
+        sorted = true;
+    }
+
+    public void add(int sentence) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        if (size > 0 && sentence < values[size - 1]) {
+            sorted = false;
+        }
+        values[size++] = sentence;
+    }
+
+    public void addAll(SentenceOffsets other) {
+        if (size + other.size > values.length) {
+            values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+        }
+        if (other.size > 0 && size > 0 && other.values[0] < values[size - 1]) {
+            sorted = false;
+        }
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+        sorted = sorted && other.sorted;
+    }
+
+    /**
+     * Removes one occurrence of the given sentence, if present.
+     */
+    public void remove(int sentence) {
+        if (!sorted) {
+            Arrays.sort(values, 0, size);
+            sorted = true;
+        }
+        int i = Arrays.binarySearch(values, 0, size, sentence);
+        if (i >= 0) {
+            System.arraycopy(values, i + 1, values, i, size - i - 1);
+            size--;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return values[i];
+    }
+
+    public double median() {
+        if (size == 0) {
+            throw new IllegalStateException("No sentences");
+        }
+        if (!sorted) {
+            Arrays.sort(values, 0, size);
+            sorted = true;
+        }
+        if (size % 2 == 0) {
+            // If even, average the two middle elements
+            return (values[size / 2 - 1] + values[size / 2]) / 2.0;
+        }
+        // If odd, return the middle element
+        return values[size / 2];
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Writes the entries translated with <code>sentenceMap</code>, the new
+     * number of each sentence.
+     */
+    void write(DataOutputStream out, int[] sentenceMap) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeInt(sentenceMap[values[i]]);
+        }
+    }
+
+    static SentenceOffsets read(ByteBuffer in) {
+        SentenceOffsets offsets = new SentenceOffsets();
+        int length = in.getInt();
+        if (length > 0) {
+            offsets.values = IndexFile.readInts(in, length);
+            offsets.size = length;
+            for (int i = 1; i < length && offsets.sorted; i++) {
+                offsets.sorted = offsets.values[i - 1] <= offsets.values[i];
+            }
+        }
+        return offsets;
+    }
+}
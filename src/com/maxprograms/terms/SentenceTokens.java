@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compact token stream of a sentence. Each token is stored as the index of its
+ * lowercase word, the index of its surface form and a byte with its tags.
+ * Tokens are grouped in chunks; chunk <code>c</code> spans positions
+ * <code>chunkStart(c)</code> to <code>chunkEnd(c)</code>.
+ */
+class SentenceTokens {
+
+    static final byte RELATABLE = 0x01;
+    static final byte STOP_WORD = 0x02;
+    static final byte ACRONYM = 0x04;
+    static final byte UPPERCASE = 0x08;
+
+    private final int[] words;
+    private final int[] forms;
+    private final byte[] tags;
+    private final int[] chunks;
+
+    private SentenceTokens(int[] words, int[] forms, byte[] tags, int[] chunks) {
+        this.words = words;
+        this.forms = forms;
+        this.tags = tags;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Computes the tags of a word that does not begin a sentence. At the start
+     * of a sentence a capitalized word is not tagged as uppercase, so callers
+     * clear the <code>UPPERCASE</code> flag there.
+     */
+    static byte tags(String word, boolean stopWord) {
+        String type = Token.getType(word, false);
+        byte result = 0;
+        if (Token.isRelatable(type)) {
+            result |= RELATABLE;
+        }
+        if (stopWord) {
+            result |= STOP_WORD;
+        }
+        if (Token.ACRONYM.equals(type)) {
+            result |= ACRONYM;
+        }
+        if (Token.UPPERCASE.equals(type)) {
+            result |= UPPERCASE;
+        }
+        return result;
+    }
+
+    int size() {
+        return words.length;
+    }
+
+    int chunkCount() {
+        return chunks.length - 1;
+    }
+
+    int chunkStart(int chunk) {
+        return chunks[chunk];
+    }
+
+    int chunkEnd(int chunk) {
+        return chunks[chunk + 1];
+    }
+
+    int word(int position) {
+        return words[position];
+    }
+
+    int form(int position) {
+        return forms[position];
+    }
+
+    boolean is(int position, byte tag) {
+        return (tags[position] & tag) != 0;
+    }
+
+    /**
+     * Replaces word and form indexes using the given translation tables.
+     */
+    void remap(int[] wordMap, int[] formMap) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] = wordMap[words[i]];
+            forms[i] = formMap[forms[i]];
+        }
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(words.length);
+        out.writeInt(chunks.length);
+        IndexFile.writeInts(out, words, words.length);
+        IndexFile.writeInts(out, forms, forms.length);
+        out.write(tags);
+        IndexFile.writeInts(out, chunks, chunks.length);
+    }
+
+    static SentenceTokens read(ByteBuffer in) {
+        int size = in.getInt();
+        int chunkBounds = in.getInt();
+        int[] words = IndexFile.readInts(in, size);
+        int[] forms = IndexFile.readInts(in, size);
+        byte[] tags = new byte[size];
+        in.get(tags);
+        return new SentenceTokens(words, forms, tags, IndexFile.readInts(in, chunkBounds));
+    }
+
+    static class Builder {
+
+        private int[] words = new int[32];
+        private int[] forms = new int[32];
+        private byte[] tags = new byte[32];
+        private int[] chunks = new int[8];
+        private int size;
+        private int chunkCount;
+
+        void add(int word, int form, byte tag) {
+            if (size == words.length) {
+                words = Arrays.copyOf(words, size * 2);
+                forms = Arrays.copyOf(forms, size * 2);
+                tags = Arrays.copyOf(tags, size * 2);
+            }
+            words[size] = word;
+            forms[size] = form;
+            tags[size] = tag;
+            size++;
+        }
+
+        void endChunk() {
+            if (chunkCount + 2 > chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunks.length * 2);
+            }
+            chunkCount++;
+            chunks[chunkCount] = size;
+        }
+
+        SentenceTokens build() {
+            return new SentenceTokens(Arrays.copyOf(words, size), Arrays.copyOf(forms, size),
+                    Arrays.copyOf(tags, size), Arrays.copyOf(chunks, chunkCount + 1));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measures a stage of an extraction. A {@link StageEvent} is committed when
+ * Flight Recorder is recording it and, while collection is enabled, the time,
+ * item count and allocated memory of the stage are added to totals per stage
+ * name that {@link #summary()} reports. When neither is active, starting and
+ * ending a stage only checks two flags.
+ */
+final class Stage {
+
+    private static final Stage DISABLED = new Stage(null, null);
+    private static final double MILLISECOND = 1_000_000.0;
+    private static final double MEGABYTE = 1024.0 * 1024.0;
+
+    private static volatile boolean collecting;
+    // calls, nanoseconds, items and allocated bytes per stage, in order of first use
+    private static final Map<String, long[]> totals = new LinkedHashMap<>();
+
+    private String name;
+    private StageEvent event;
+    private long start;
+    private long allocated;
+
+    /**
+     * Loaded only when memory is measured for the first time.
+     */
+    private static class Allocation {
+
+        static final com.sun.management.ThreadMXBean bean = bean();
+
+        private static com.sun.management.ThreadMXBean bean() {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean sunBean
+                    && sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean;
+            }
+            return null;
+        }
+
+        static long bytes() {
+            return bean != null ? bean.getTotalThreadAllocatedBytes() : -1;
+        }
+    }
+
+    private Stage(String name, StageEvent event) {
+        this.name = name;
+        this.event = event;
+    }
+
+    /**
+     * Enables or disables the totals reported by {@link #summary()},
+     * discarding those collected so far.
+     */
+    static void setCollecting(boolean value) {
+        synchronized (totals) {
+            totals.clear();
+        }
+        collecting = value;
+    }
+
+    static Stage start(String name) {
+        StageEvent event = new StageEvent();
+        if (!collecting && !event.isEnabled()) {
+            return DISABLED;
+        }
+        Stage stage = new Stage(name, event);
+        stage.allocated = Allocation.bytes();
+        event.begin();
+        stage.start = System.nanoTime();
+        return stage;
+    }
+
+    /**
+     * @param items number of segments, sentences, terms or pairs produced by
+     *              the stage
+     */
+    void end(long items) {
+        if (this == DISABLED) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        event.end();
+        long bytes = allocated == -1 ? -1 : Allocation.bytes() - allocated;
+        if (event.shouldCommit()) {
+            event.stage = name;
+            event.items = items;
+            event.allocated = bytes;
+            event.commit();
+        }
+        if (collecting) {
+            synchronized (totals) {
+                long[] values = totals.computeIfAbsent(name, key -> new long[4]);
+                values[0]++;
+                values[1] += elapsed;
+                values[2] += items;
+                values[3] += Math.max(bytes, 0);
+            }
+        }
+    }
+
+    /**
+     * @return a table with the totals of each stage, or an empty string when
+     *         nothing was collected
+     */
+    static String summary() {
+        String[] header = Messages.getString("Stage.1").split(",");
+        Map<String, long[]> copy;
+        synchronized (totals) {
+            copy = new LinkedHashMap<>(totals);
+        }
+        if (copy.isEmpty()) {
+            return "";
+        }
+        int[] widths = { 0, 6, 10, 10, 10 };
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = Math.max(widths[i], header[i].length());
+        }
+        for (String stage : copy.keySet()) {
+            widths[0] = Math.max(widths[0], stage.length());
+        }
+        String row = "%-" + widths[0] + "s  %" + widths[1] + "s  %" + widths[2] + "s  %" + widths[3] + "s  %"
+                + widths[4] + "s%n";
+        StringBuilder sb = new StringBuilder();
+        sb.append(System.lineSeparator());
+        sb.append(String.format(row, (Object[]) header));
+        for (Map.Entry<String, long[]> entry : copy.entrySet()) {
+            long[] values = entry.getValue();
+            sb.append(String.format(row, entry.getKey(), values[0], String.format("%.1f", values[1] / MILLISECOND),
+                    values[2], String.format("%.1f", values[3] / MEGABYTE)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event committed when a stage of an extraction ends.
+ */
+@Name("com.maxprograms.terms.Stage")
+@Label("Extraction Stage")
+@Category("Terms")
+@Description("A stage of a term extraction")
+@StackTrace(false)
+class StageEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Items")
+    @Description("Number of segments, sentences, terms or pairs produced by the stage")
+    long items;
+
+    @Label("Allocated")
+    @Description("Heap memory allocated by all threads while the stage ran, or -1 if not measured")
+    @DataAmount
+    long allocated;
+}
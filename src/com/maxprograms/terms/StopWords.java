@@ -14,65 +14,82 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
+/**
+ * Stop words are stored as one UTF-8 resource per language in the
+ * <code>stopwords</code> folder, one word per line, and
+ * <code>stopwords/languages.txt</code> lists the available languages. Each
+ * language is loaded the first time it is requested and kept as an immutable
+ * set shared by all callers.
+ */
 public class StopWords {
 
-    private static JSONObject wordsList;
+    private static final Map<String, Set<String>> cache = new ConcurrentHashMap<>();
+    private static volatile Set<String> languages;
 
     private StopWords() {
         // private for security
     }
 
-    public static List<String> getStopWords(String language) throws IOException {
-        List<String> result = new ArrayList<>();
-        if (wordsList == null) {
-            loadWordList();
-        }
+    public static Set<String> getStopWords(String language) throws IOException {
         String lang = language;
         if (lang.indexOf('-') != -1) {
             lang = lang.substring(0, lang.indexOf('-'));
         }
-        if (wordsList.has(lang)) {
-            JSONArray array = wordsList.getJSONArray(lang);
-            for (int i=0 ; i<array.length() ; i++) {
-                result.add(array.getString(i));
-            }            
+        if (!getLanguages().contains(lang)) {
+            return Set.of();
+        }
+        try {
+            return cache.computeIfAbsent(lang, key -> {
+                try {
+                    return Set.copyOf(readLines("stopwords/" + key + ".txt"));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-        return result;
     }
 
     public static Set<String> getLanguages() throws IOException {
-        if (wordsList == null) {
-            loadWordList();
+        Set<String> result = languages;
+        if (result == null) {
+            synchronized (StopWords.class) {
+                result = languages;
+                if (result == null) {
+                    result = Set.copyOf(readLines("stopwords/languages.txt"));
+                    languages = result;
+                }
+            }
         }
-        return wordsList.keySet();
+        return result;
     }
 
-    private static void loadWordList() throws IOException {
-        StringBuilder builder = new StringBuilder();
-        try (InputStream stream = StopWords.class.getResourceAsStream("stopWords.json")) {
+    private static List<String> readLines(String resource) throws IOException {
+        List<String> result = new ArrayList<>();
+        try (InputStream stream = StopWords.class.getResourceAsStream(resource)) {
             if (stream == null) {
-                throw new IOException("stopWords.json resource not found");
+                throw new IOException(resource + " resource not found");
             }
-            try (InputStreamReader reader = new InputStreamReader(stream)) {
+            try (InputStreamReader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
                 try (BufferedReader buffer = new BufferedReader(reader)) {
                     String line = "";
                     while ((line = buffer.readLine()) != null) {
-                        if (!builder.isEmpty()) {
-                            builder.append('\n');
-                        } 
-                        builder.append(line);
-
+                        if (!line.isEmpty()) {
+                            result.add(line);
+                        }
                     }
                 }
             }
         }
-        wordsList = new JSONObject(builder.toString());
+        return result;
     }
 }
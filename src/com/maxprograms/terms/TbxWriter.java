@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Streams results as a TBX (ISO 30042:2019) document, one
+ * <code>conceptEntry</code> per row, so memory use does not depend on the
+ * number of rows.
+ * <p>
+ * The column <code>term</code> becomes the term of a single language section
+ * in the source language and the other columns are written as
+ * <code>note</code> elements of that term, with the column key before the
+ * value, as TBX-Basic defines no data categories for scores or frequencies.
+ * Columns starting with <code>source</code> or <code>target</code> go to the
+ * term of the matching language section and the remaining columns describe
+ * the whole entry. The column <code>number</code>, when present, identifies
+ * the entry.
+ */
+class TbxWriter implements ResultWriter {
+
+    private static final int BUFFER_SIZE = 65536;
+    private static final String NAMESPACE = "urn:iso:std:iso:30042:ed-2";
+
+    private Writer output;
+    private XMLStreamWriter writer;
+    private String sourceLanguage = "und";
+    private String targetLanguage = "und";
+    private String[] keys;
+    private int termColumn;
+    private int entries;
+
+    TbxWriter(String file) throws IOException {
+        output = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8),
+                BUFFER_SIZE);
+        try {
+            writer = XMLOutputFactory.newInstance().createXMLStreamWriter(output);
+        } catch (XMLStreamException e) {
+            output.close();
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void setLanguages(String source, String target) {
+        sourceLanguage = source;
+        if (target != null) {
+            targetLanguage = target;
+        }
+    }
+
+    @Override
+    public void writeHeader(String[] columns, String[] labels) throws IOException {
+        keys = columns;
+        termColumn = indexOf("term");
+        try {
+            writer.writeStartDocument("UTF-8", "1.0");
+            newLine(0);
+            writer.writeStartElement("tbx");
+            writer.writeDefaultNamespace(NAMESPACE);
+            writer.writeAttribute("type", "TBX-Basic");
+            writer.writeAttribute("style", "dca");
+            writer.writeAttribute("xml:lang", sourceLanguage);
+            newLine(1);
+            writer.writeStartElement("tbxHeader");
+            newLine(2);
+            writer.writeStartElement("fileDesc");
+            newLine(3);
+            writer.writeStartElement("sourceDesc");
+            newLine(4);
+            writer.writeStartElement("p");
+            writer.writeCharacters("Terms Extractor " + Constants.VERSION);
+            writer.writeEndElement(); // p
+            newLine(3);
+            writer.writeEndElement(); // sourceDesc
+            newLine(2);
+            writer.writeEndElement(); // fileDesc
+            newLine(1);
+            writer.writeEndElement(); // tbxHeader
+            newLine(1);
+            writer.writeStartElement("text");
+            newLine(2);
+            writer.writeStartElement("body");
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void writeRow(Object... values) throws IOException {
+        entries++;
+        try {
+            newLine(3);
+            writer.writeStartElement("conceptEntry");
+            String id = "c" + entries;
+            for (int i = 0; i < keys.length; i++) {
+                if ("number".equals(keys[i])) {
+                    id = "c" + text(values[i]);
+                }
+            }
+            writer.writeAttribute("id", id);
+            if (termColumn != -1) {
+                languageSection(sourceLanguage, "", values, termColumn);
+            } else {
+                for (int i = 0; i < keys.length; i++) {
+                    String key = keys[i];
+                    if (!"number".equals(key) && !key.startsWith("source") && !key.startsWith("target")) {
+                        note(4, key, values[i]);
+                    }
+                }
+                languageSection(sourceLanguage, "source", values, indexOf("sourceTerm"));
+                languageSection(targetLanguage, "target", values, indexOf("targetTerm"));
+            }
+            newLine(3);
+            writer.writeEndElement(); // conceptEntry
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private void languageSection(String language, String prefix, Object[] values, int term)
+            throws XMLStreamException {
+        newLine(4);
+        writer.writeStartElement("langSec");
+        writer.writeAttribute("xml:lang", language);
+        newLine(5);
+        writer.writeStartElement("termSec");
+        newLine(6);
+        writer.writeStartElement("term");
+        writer.writeCharacters(text(values[term]));
+        writer.writeEndElement(); // term
+        for (int i = 0; i < keys.length; i++) {
+            String key = keys[i];
+            if (i == term || "number".equals(key)) {
+                continue;
+            }
+            if (prefix.isEmpty()) {
+                note(6, key, values[i]);
+            } else if (key.startsWith(prefix)) {
+                String type = key.substring(prefix.length());
+                note(6, Character.toLowerCase(type.charAt(0)) + type.substring(1), values[i]);
+            }
+        }
+        newLine(5);
+        writer.writeEndElement(); // termSec
+        newLine(4);
+        writer.writeEndElement(); // langSec
+    }
+
+    private void note(int level, String key, Object value) throws XMLStreamException {
+        newLine(level);
+        writer.writeStartElement("note");
+        writer.writeCharacters(key + ": " + text(value));
+        writer.writeEndElement();
+    }
+
+    private int indexOf(String key) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String text(Object value) {
+        if (value instanceof int[] list) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < list.length; i++) {
+                if (i > 0) {
+                    sb.append(' ');
+                }
+                sb.append(list[i]);
+            }
+            return sb.toString();
+        }
+        if (value instanceof BigDecimal number) {
+            return number.toPlainString();
+        }
+        return String.valueOf(value);
+    }
+
+    private void newLine(int level) throws XMLStreamException {
+        writer.writeCharacters("\n" + "  ".repeat(level));
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (keys != null) {
+                newLine(2);
+                writer.writeEndElement(); // body
+                newLine(1);
+                writer.writeEndElement(); // text
+                newLine(0);
+                writer.writeEndElement(); // tbx
+                writer.writeCharacters("\n");
+                writer.writeEndDocument();
+            }
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            output.close();
+        }
+    }
+}
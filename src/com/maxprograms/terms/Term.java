@@ -10,23 +10,21 @@
 
 package com.maxprograms.terms;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Set;
-import java.util.Vector;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 
 public class Term implements Comparable<Term> {
 
     private String text;
-    private Vector<Integer> offsetSentences;
+    private SentenceOffsets offsetSentences;
     private int termFrequency;
     private int acronymFrequency;
     private int upperCaseFrequency;
     private double position;
     private double normalizedFrequency;
-    private Map<String, Integer> leftWords;
-    private Map<String, Integer> rightWords;
+    private ContextCounter leftWords;
+    private ContextCounter rightWords;
     private double different;
     private double relatedness;
     private double score;
@@ -34,19 +32,23 @@ public class Term implements Comparable<Term> {
 
     public Term(String term) {
         text = term;
-        offsetSentences = new Vector<>();
+        offsetSentences = new SentenceOffsets();
         termFrequency = 0;
         acronymFrequency = 0;
         upperCaseFrequency = 0;
-        leftWords = new HashMap<>();
-        rightWords = new HashMap<>();
+        leftWords = new ContextCounter();
+        rightWords = new ContextCounter();
     }
 
     public String getText() {
         return text;
     }
 
-    public Vector<Integer> getOffsetSentences() {
+    void setText(String text) {
+        this.text = text;
+    }
+
+    public SentenceOffsets getOffsetSentences() {
         return offsetSentences;
     }
 
@@ -54,18 +56,34 @@ public class Term implements Comparable<Term> {
         offsetSentences.add(i);
     }
 
+    public void removeSentence(int i) {
+        offsetSentences.remove(i);
+    }
+
     public void increaseFrequency() {
         termFrequency++;
     }
 
+    public void decreaseFrequency() {
+        termFrequency--;
+    }
+
     public void increaseAcronym() {
         acronymFrequency++;
     }
 
+    public void decreaseAcronym() {
+        acronymFrequency--;
+    }
+
     public void increaseUpperCase() {
         upperCaseFrequency++;
     }
 
+    public void decreaseUpperCase() {
+        upperCaseFrequency--;
+    }
+
     public int getTermFrequency() {
         return termFrequency;
     }
@@ -83,7 +101,7 @@ public class Term implements Comparable<Term> {
     }
 
     public double getPosition() {
-        double median = Utils.median(offsetSentences);
+        double median = offsetSentences.median();
         return Math.log(Math.log(3 + median));
     }
 
@@ -95,14 +113,73 @@ public class Term implements Comparable<Term> {
         return 1 / (1 + normalizedFrequency);
     }
 
-    public void addLeft(String word) {
-        leftWords.computeIfAbsent(word, k -> 0);
-        leftWords.put(word, leftWords.get(word) + 1);
+    /**
+     * @param word vocabulary id of a word found before this term
+     */
+    public void addLeft(int word) {
+        leftWords.add(word);
+    }
+
+    /**
+     * @param word vocabulary id of a word found after this term
+     */
+    public void addRight(int word) {
+        rightWords.add(word);
     }
 
-    public void addRight(String word) {
-        rightWords.computeIfAbsent(word, k -> 0);
-        rightWords.put(word, rightWords.get(word) + 1);
+    public void removeLeft(int word) {
+        leftWords.remove(word);
+    }
+
+    public void removeRight(int word) {
+        rightWords.remove(word);
+    }
+
+    /**
+     * Adds the statistics collected for the same word in a later range of
+     * sentences. Context word ids of the other term are translated with
+     * <code>wordMap</code>.
+     */
+    public void merge(Term other, int[] wordMap) {
+        termFrequency += other.termFrequency;
+        acronymFrequency += other.acronymFrequency;
+        upperCaseFrequency += other.upperCaseFrequency;
+        offsetSentences.addAll(other.offsetSentences);
+        leftWords.addAll(other.leftWords, wordMap);
+        rightWords.addAll(other.rightWords, wordMap);
+    }
+
+    /**
+     * Translates the context word ids of this term.
+     */
+    public void remapContext(int[] wordMap) {
+        leftWords.remap(wordMap);
+        rightWords.remap(wordMap);
+    }
+
+    /**
+     * Writes the text and the occurrence statistics of this term. Features and
+     * score are computed again after reading.
+     */
+    void write(DataOutputStream out, int[] sentenceMap) throws IOException {
+        IndexFile.writeString(out, text);
+        out.writeInt(termFrequency);
+        out.writeInt(acronymFrequency);
+        out.writeInt(upperCaseFrequency);
+        offsetSentences.write(out, sentenceMap);
+        leftWords.write(out);
+        rightWords.write(out);
+    }
+
+    static Term read(ByteBuffer in) {
+        Term term = new Term(IndexFile.readString(in));
+        term.termFrequency = in.getInt();
+        term.acronymFrequency = in.getInt();
+        term.upperCaseFrequency = in.getInt();
+        term.offsetSentences = SentenceOffsets.read(in);
+        term.leftWords.read(in);
+        term.rightWords.read(in);
+        return term;
     }
 
     public void calcDifferent(int sentences) {
@@ -111,26 +188,24 @@ public class Term implements Comparable<Term> {
     }
 
     public void calcRelatednes(int maxFrequency) {
-        int rightSum = sum(rightWords);
-        double wr = rightSum != 0 ? rightWords.size() / rightSum : 0;
-        int leftSum = sum(leftWords);
-        double wl = leftSum != 0 ? leftWords.size() / leftSum : 0;
+        int rightSum = rightWords.total();
+        double wr = rightSum != 0 ? rightWords.distinct() / rightSum : 0;
+        int leftSum = leftWords.total();
+        double wl = leftSum != 0 ? leftWords.distinct() / leftSum : 0;
         relatedness = 1 + (wr + wl) * normalizedFrequency / maxFrequency;
     }
 
-    private int sum(Map<String, Integer> map) {
-        int result = 0;
-        Set<String> keys = map.keySet();
-        Iterator<String> it = keys.iterator();
-        while (it.hasNext()) {
-            result += map.get(it.next());
-        }
-        return result;
+    public void calcTermScore() {
+        calcTermScore(offsetSentences.median());
     }
 
-    public void calcTermScore() {
+    /**
+     * Computes the score using the given median sentence index instead of the
+     * median of the stored sentence offsets.
+     */
+    public void calcTermScore(double medianSentence) {
         casing = getCasing();
-        position = getPosition();
+        position = Math.log(Math.log(3 + medianSentence));
         // Prevent division by zero
         if (relatedness == 0) {
             score = 0.0;
@@ -144,6 +219,31 @@ public class Term implements Comparable<Term> {
         }
     }
 
+    /**
+     * @return a copy of the text, counters and computed features of this term,
+     *         without sentence offsets or context words
+     */
+    Term snapshot() {
+        Term copy = new Term(text);
+        copy.termFrequency = termFrequency;
+        copy.acronymFrequency = acronymFrequency;
+        copy.upperCaseFrequency = upperCaseFrequency;
+        copy.position = position;
+        copy.normalizedFrequency = normalizedFrequency;
+        copy.different = different;
+        copy.relatedness = relatedness;
+        copy.score = score;
+        copy.casing = casing;
+        return copy;
+    }
+
+    /**
+     * @return the values written by {@link #getData()}, as text and numbers
+     */
+    public Object[] getValues() {
+        return new Object[] { text, score, casing, position, termFrequency, getRelevance(), relatedness, different };
+    }
+
     public String getData() {
         return text + ',' + score + ',' + casing + ',' + position + ',' + termFrequency + ',' + getRelevance() + ','
                 + relatedness + ',' + different;
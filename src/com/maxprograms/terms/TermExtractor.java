@@ -11,63 +11,98 @@
 package com.maxprograms.terms;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.lang.System.Logger;
 import java.lang.System.Logger.Level;
-import java.nio.charset.StandardCharsets;
 import java.text.BreakIterator;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.Vector;
-
-import javax.xml.parsers.ParserConfigurationException;
-
-import org.xml.sax.SAXException;
-
-import com.maxprograms.xml.Document;
-import com.maxprograms.xml.Element;
-import com.maxprograms.xml.SAXBuilder;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
 
 public class TermExtractor {
 
     private static Logger logger = System.getLogger(TermExtractor.class.getName());
-    private static final int WINDOW = 2;
+    private static final String[] COLUMNS = { "number", "term", "score", "casing", "position", "frequency",
+            "relevance", "relatedness", "different" };
+    private static final int SEGMENT_BATCH = 8192;
+    private static final int MAX_EDITS = 2;
+    private static final int MIN_SIMILAR_LENGTH = 9;
     private static boolean debug = false;
 
-    private List<String> stopWords;
+    private Set<String> stopWords;
     private String srcLang;
 
     private List<String> sentences;
-    private Map<String, Integer> index;
-    private Vector<String[]> chunks;
+    private Vocabulary index;
+    private List<String[]> chunks;
     private BreakIterator sentenceIterator;
-    private BreakIterator wordsIterator;
     private Locale locale;
     private List<Term> terms;
     private List<Integer> sentenceToSegmentNumber;
-    private int currentSegmentNumber;
+    private TermStatistics statistics;
+    private Vocabulary forms;
+    private List<SentenceTokens> tokenCache;
+    private boolean cacheTokens;
+    private long candidateMemory;
+    private int threads;
+    private ForkJoinPool pool;
+    private List<Segment> pendingSegments;
+
+    private record SentenceBatch(List<String> sentences, List<Integer> segmentNumbers) {
+    }
+
+    /**
+     * Sentences of one file of a corpus, with segment numbers local to the file.
+     */
+    private record FileSentences(SentenceBatch batch, int segments) {
+    }
 
     public static void main(String[] args) {
         args = Utils.fixPath(args);
 
         String xliff = "";
+        String corpus = "";
+        String index = "";
         String output = "";
         int minFrequency = 3;
         double maxScore = 10.0;
         boolean relevant = false;
         int maxTermLenght = 3;
+        boolean cacheTokens = true;
+        int threads = 1;
+        int top = 0;
+        long candidateMemory = 0;
+        boolean stats = false;
+        ResultFormat format = ResultFormat.CSV_UTF16;
 
         try {
             for (int i = 0; i < args.length; i++) {
                 if ("-xliff".equals(args[i]) && i + 1 < args.length) {
                     xliff = args[i + 1];
                 }
+                if ("-corpus".equals(args[i]) && i + 1 < args.length) {
+                    corpus = args[i + 1];
+                }
+                if ("-index".equals(args[i]) && i + 1 < args.length) {
+                    index = args[i + 1];
+                }
                 if ("-output".equals(args[i]) && i + 1 < args.length) {
                     output = args[i + 1];
                 }
@@ -80,6 +115,26 @@ public class TermExtractor {
                 if ("-relevant".equals(args[i])) {
                     relevant = true;
                 }
+                if ("-noTokenCache".equals(args[i])) {
+                    cacheTokens = false;
+                }
+                if ("-threads".equals(args[i]) && i + 1 < args.length) {
+                    threads = Integer.parseInt(args[i + 1]);
+                }
+                if ("-format".equals(args[i]) && i + 1 < args.length) {
+                    format = ResultFormat.forName(args[i + 1]);
+                    if (format == null) {
+                        MessageFormat mf = new MessageFormat(Messages.getString("TermExtractor.15"));
+                        logger.log(Level.ERROR, mf.format(new String[] { args[i + 1] }));
+                        System.exit(1);
+                    }
+                }
+                if ("-top".equals(args[i]) && i + 1 < args.length) {
+                    top = Integer.parseInt(args[i + 1]);
+                }
+                if ("-candidateMemory".equals(args[i]) && i + 1 < args.length) {
+                    candidateMemory = Long.parseLong(args[i + 1]);
+                }
                 if ("-maxLength".equals(args[i]) && i + 1 < args.length) {
                     maxTermLenght = Integer.parseInt(args[i + 1]);
                 }
@@ -95,6 +150,9 @@ public class TermExtractor {
                 if ("-debug".equals(args[i])) {
                     debug = true;
                 }
+                if ("-stats".equals(args[i])) {
+                    stats = true;
+                }
                 if ("-lang".equals(args[i]) && i + 1 < args.length) {
                     String lang = args[i + 1];
                     if ("en".equals(lang) || "es".equals(lang) ) {
@@ -102,7 +160,7 @@ public class TermExtractor {
                     }                    
                 }
             }
-            if (xliff.isEmpty()) {
+            if (xliff.isEmpty() == corpus.isEmpty()) {
                 usage();
                 System.exit(1);
             }
@@ -119,31 +177,85 @@ public class TermExtractor {
                 logger.log(Level.ERROR, Messages.getString("TermExtractor.8"));
                 System.exit(1);
             }
-            File xliffFile = new File(xliff);
-            if (!xliffFile.exists()) {
+            if (threads < 1) {
+                logger.log(Level.ERROR, Messages.getString("TermExtractor.13"));
+                System.exit(1);
+            }
+            if (top < 0) {
+                logger.log(Level.ERROR, Messages.getString("TermExtractor.14"));
+                System.exit(1);
+            }
+            if (candidateMemory < 0) {
+                logger.log(Level.ERROR, Messages.getString("TermExtractor.16"));
+                System.exit(1);
+            }
+            List<String> files = null;
+            if (!corpus.isEmpty()) {
+                if (!Corpus.base(corpus).exists()) {
+                    MessageFormat mf = new MessageFormat(Messages.getString("TermExtractor.9"));
+                    logger.log(Level.ERROR, mf.format(new String[] { corpus }));
+                    System.exit(1);
+                }
+                files = Corpus.files(corpus);
+                if (files.isEmpty()) {
+                    MessageFormat mf = new MessageFormat(Messages.getString("TermExtractor.19"));
+                    logger.log(Level.ERROR, mf.format(new String[] { corpus }));
+                    System.exit(1);
+                }
+                for (String file : files) {
+                    if (!new File(file).exists()) {
+                        MessageFormat mf = new MessageFormat(Messages.getString("TermExtractor.9"));
+                        logger.log(Level.ERROR, mf.format(new String[] { file }));
+                        System.exit(1);
+                    }
+                }
+            } else if (!new File(xliff).exists()) {
                 MessageFormat mf = new MessageFormat(Messages.getString("TermExtractor.9"));
                 logger.log(Level.ERROR, mf.format(new String[] { xliff }));
                 System.exit(1);
             }
             if (output.isEmpty()) {
-                File file = new File(xliff);
+                File file = files != null ? Corpus.base(corpus) : new File(xliff);
                 String path = file.getAbsolutePath();
-                if (path.lastIndexOf('.') == -1) {
-                    output = path + ".csv";
+                if (file.isDirectory() || path.lastIndexOf('.') <= path.lastIndexOf(File.separatorChar)) {
+                    output = path + "." + format.getExtension();
                 } else {
-                    output = path.substring(0, path.lastIndexOf('.')) + ".csv";
+                    output = path.substring(0, path.lastIndexOf('.')) + "." + format.getExtension();
                 }
             }
-            TermExtractor extractor = new TermExtractor(xliff, maxTermLenght, minFrequency, maxScore, relevant);
-            List<Term> list = extractor.getTerms();
-            Collections.sort(list);
-            try (FileOutputStream out = new FileOutputStream(new File(output))) {
-                out.write(new byte[] { -1, -2 });
-                String title = Messages.getString("TermExtractor.1");
-                out.write(title.getBytes(StandardCharsets.UTF_16LE));
-                for (int i = 0; i < list.size(); i++) {
-                    out.write(((i + 1) + "," + list.get(i).getData() + "\n").getBytes(StandardCharsets.UTF_16LE));
+            ExtractionOptions options = new ExtractionOptions(maxTermLenght, minFrequency, maxScore, relevant);
+            options.setCacheTokens(cacheTokens);
+            options.setThreads(threads);
+            options.setCandidateMemory(candidateMemory * 1024 * 1024);
+            Stage.setCollecting(stats);
+            List<Term> list;
+            String language;
+            Stage stage;
+            if (!index.isEmpty()) {
+                IncrementalTermExtractor extractor = updateIndex(new File(index),
+                        files != null ? files : List.of(xliff), options);
+                language = extractor.getLanguage();
+                stage = Stage.start("snapshot");
+                list = extractor.snapshot(top > 0 ? top : Integer.MAX_VALUE);
+                stage.end(list.size());
+            } else {
+                TermExtractor extractor = files != null ? new TermExtractor(files, options)
+                        : new TermExtractor(xliff, options);
+                language = extractor.getLanguage();
+                stage = Stage.start("sort");
+                if (top > 0) {
+                    list = extractor.getTopTerms(top);
+                } else {
+                    list = extractor.getTerms();
+                    Collections.sort(list);
                 }
+                stage.end(list.size());
+            }
+            stage = Stage.start("output");
+            write(list, language, format, output);
+            stage.end(list.size());
+            if (stats) {
+                logger.log(Level.INFO, Stage.summary());
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -152,124 +264,450 @@ public class TermExtractor {
         }
     }
 
+    /**
+     * Opens the index, or starts a new one in the language of the first file,
+     * processes the segments that changed in the files and saves the index
+     * when something changed.
+     */
+    private static IncrementalTermExtractor updateIndex(File index, List<String> xliffFiles,
+            ExtractionOptions options) throws IOException {
+        boolean exists = index.exists();
+        IncrementalTermExtractor extractor;
+        Stage stage = Stage.start("openIndex");
+        if (exists) {
+            extractor = IncrementalTermExtractor.open(index, options);
+        } else {
+            try (XliffReader reader = new XliffReader(xliffFiles.get(0))) {
+                extractor = new IncrementalTermExtractor(reader.getSrcLang(), options);
+            }
+        }
+        stage.end(extractor.getSegmentCount());
+        stage = Stage.start("ingest");
+        int changes = extractor.ingest(xliffFiles);
+        stage.end(changes);
+        MessageFormat mf = new MessageFormat(Messages.getString("TermExtractor.20"));
+        logger.log(Level.INFO, mf.format(new String[] { String.valueOf(changes),
+                String.valueOf(extractor.getSegmentCount()) }));
+        if (changes > 0 || !exists) {
+            stage = Stage.start("saveIndex");
+            extractor.save(index);
+            stage.end(extractor.getSegmentCount());
+        }
+        return extractor;
+    }
+
     private static void usage() {
         logger.log(Level.INFO, Messages.getString("TermExtractor.2"));
     }
 
+    /**
+     * Writes the terms, numbered in list order, to the output file.
+     */
+    static void write(List<Term> list, String language, ResultFormat format, String output) throws IOException {
+        try (ResultWriter writer = format.open(output)) {
+            writer.setLanguages(language, null);
+            writer.writeHeader(COLUMNS, Messages.getString("TermExtractor.1").strip().split(","));
+            for (int i = 0; i < list.size(); i++) {
+                Object[] values = list.get(i).getValues();
+                Object[] row = new Object[values.length + 1];
+                row[0] = i + 1;
+                System.arraycopy(values, 0, row, 1, values.length);
+                writer.writeRow(row);
+            }
+        }
+    }
+
     public List<Term> getTerms() {
         return terms;
     }
 
+    /**
+     * @return the best <code>k</code> terms sorted by score, the same terms
+     *         that sorting the list returned by {@link #getTerms()} would place
+     *         first
+     */
+    public List<Term> getTopTerms(int k) {
+        return topTerms(terms, k);
+    }
+
+    public String getLanguage() {
+        return srcLang;
+    }
+
     public List<Integer> getSentenceToSegmentMap() {
         return sentenceToSegmentNumber;
     }
 
     public TermExtractor(String xliffFile, int maxTermLenght, int minFrequency, double maxScore, boolean relevant)
-            throws IOException, SAXException, ParserConfigurationException {
-        sentences = new Vector<>();
-        chunks = new Vector<>();
-        sentenceToSegmentNumber = new Vector<>();
-        currentSegmentNumber = 0;
+            throws IOException {
+        this(xliffFile, new ExtractionOptions(maxTermLenght, minFrequency, maxScore, relevant));
+    }
 
-        SAXBuilder builder = new SAXBuilder();
-        Document doc = builder.build(xliffFile);
-        Element root = doc.getRootElement();
-        if (!("xliff".equals(root.getName()) && root.getAttributeValue("version").startsWith("2."))) {
-            throw new IOException(Messages.getString("TermExtractor.3"));
+    public TermExtractor(String xliffFile, ExtractionOptions options) throws IOException {
+        try {
+            try (XliffReader reader = new XliffReader(xliffFile)) {
+                initialize(reader.getSrcLang(), options);
+                Stage stage = Stage.start("parse");
+                Segment segment = reader.nextSegment();
+                while (segment != null) {
+                    Utils.checkInterrupted();
+                    if (pendingSegments.size() == SEGMENT_BATCH) {
+                        // sentences are built outside of the parse stage
+                        stage.end(SEGMENT_BATCH);
+                        flushSegments();
+                        stage = Stage.start("parse");
+                    }
+                    pendingSegments.add(segment);
+                    segment = reader.nextSegment();
+                }
+                stage.end(pendingSegments.size());
+            }
+            endSegments();
+            process(options);
+        } finally {
+            shutdown();
         }
-        srcLang = root.getAttributeValue("srcLang");
+    }
+
+    /**
+     * Extracts terms from several XLIFF files as a single corpus. With more
+     * than one thread the files are parsed and split into sentences in
+     * parallel; sentences are then appended in the order of the list, so
+     * statistics and scores are computed once, as if the files were one
+     * document. Segments are numbered across the corpus: the first segment of
+     * a file follows the last segment of the previous one.
+     *
+     * @param xliffFiles at least one file; all must have the same source
+     *                   language
+     */
+    public TermExtractor(List<String> xliffFiles, ExtractionOptions options) throws IOException {
+        try {
+            try (XliffReader reader = new XliffReader(xliffFiles.get(0))) {
+                initialize(reader.getSrcLang(), options);
+            }
+            List<FileSentences> files = new ArrayList<>();
+            if (pool == null) {
+                for (String file : xliffFiles) {
+                    files.add(readFile(file));
+                }
+            } else {
+                List<Callable<FileSentences>> tasks = new ArrayList<>();
+                for (String file : xliffFiles) {
+                    tasks.add(() -> readFile(file));
+                }
+                for (Future<FileSentences> future : pool.invokeAll(tasks)) {
+                    files.add(await(future));
+                }
+            }
+            int offset = 0;
+            for (FileSentences file : files) {
+                sentences.addAll(file.batch().sentences());
+                for (int number : file.batch().segmentNumbers()) {
+                    sentenceToSegmentNumber.add(offset + number);
+                }
+                offset += file.segments();
+            }
+            process(options);
+        } finally {
+            shutdown();
+        }
+    }
+
+    public TermExtractor(String language, Iterator<Segment> segments, int maxTermLenght, int minFrequency,
+            double maxScore, boolean relevant) throws IOException {
+        this(language, segments, new ExtractionOptions(maxTermLenght, minFrequency, maxScore, relevant));
+    }
+
+    /**
+     * Extracts terms from segments already loaded in memory. Only the source
+     * text of each segment is used and sentences are mapped to the segment
+     * number.
+     */
+    public TermExtractor(String language, Iterator<Segment> segments, ExtractionOptions options)
+            throws IOException {
+        try {
+            initialize(language, options);
+            while (segments.hasNext()) {
+                addSegment(segments.next());
+            }
+            endSegments();
+            process(options);
+        } finally {
+            shutdown();
+        }
+    }
+
+    private TermExtractor() {
+        // used by prepare()
+    }
+
+    /**
+     * Creates an extractor with the sentences of the given segments and
+     * leaves the remaining stages to the caller, so they can be run and
+     * measured one at a time. The caller must call {@link #shutdown()} when
+     * done.
+     */
+    static TermExtractor prepare(String language, Iterator<Segment> segments, ExtractionOptions options)
+            throws IOException {
+        TermExtractor extractor = new TermExtractor();
+        extractor.initialize(language, options);
+        while (segments.hasNext()) {
+            extractor.addSegment(segments.next());
+        }
+        extractor.endSegments();
+        return extractor;
+    }
+
+    private void initialize(String language, ExtractionOptions options) throws IOException {
+        sentences = new ArrayList<>();
+        chunks = new ArrayList<>();
+        sentenceToSegmentNumber = new Vector<>();
+        srcLang = language;
         locale = Locale.forLanguageTag(srcLang);
         sentenceIterator = BreakIterator.getSentenceInstance(locale);
-        wordsIterator = BreakIterator.getWordInstance(locale);
         stopWords = StopWords.getStopWords(srcLang);
-        buildSentences(root);
-        preProcess();
-        termStatistics();
-        featureComputation();
-        generateCandidates(maxTermLenght, minFrequency, maxScore, relevant);
-        deduplicateTerms();
+        cacheTokens = options.isCacheTokens();
+        candidateMemory = options.getCandidateMemory();
+        threads = options.getThreads();
+        pendingSegments = new ArrayList<>();
+        if (threads > 1) {
+            pool = new ForkJoinPool(threads);
+        }
     }
 
-    private void buildSentences(Element e) {
-        if ("segment".equals(e.getName())) {
-            currentSegmentNumber++;
-            Element source = e.getChild("source");
-            if (source == null) {
-                // Skip segments without source element
-                return;
+    final void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * Reads the segments of one file of a corpus and splits them into
+     * sentences with an iterator of its own, so several files can be read at
+     * the same time.
+     */
+    private FileSentences readFile(String xliffFile) throws IOException {
+        Stage stage = Stage.start("parse");
+        List<Segment> segments = new ArrayList<>();
+        try (XliffReader reader = new XliffReader(xliffFile)) {
+            String language = reader.getSrcLang();
+            if (!locale.getLanguage().equals(Locale.forLanguageTag(language).getLanguage())) {
+                MessageFormat mf = new MessageFormat(Messages.getString("TermExtractor.18"));
+                throw new IOException(mf.format(new String[] { xliffFile, language, srcLang }));
+            }
+            Segment segment = reader.nextSegment();
+            while (segment != null) {
+                Utils.checkInterrupted();
+                segments.add(segment);
+                segment = reader.nextSegment();
             }
-            String sourceText = Utils.pureText(source);
-            if (!sourceText.isBlank()) {
-                sentenceIterator.setText(sourceText);
-                int start = sentenceIterator.first();
-                for (int end = sentenceIterator.next(); end != BreakIterator.DONE; start = end, end = sentenceIterator
-                        .next()) {
-                    String sentence = sourceText.substring(start, end).replace('\u00A0', ' ');
-                    sentences.add(sentence.strip());
-                    sentenceToSegmentNumber.add(currentSegmentNumber);
+        }
+        stage.end(segments.size());
+        stage = Stage.start("buildSentences");
+        BreakIterator iterator = BreakIterator.getSentenceInstance(locale);
+        SentenceBatch batch = new SentenceBatch(new ArrayList<>(), new ArrayList<>());
+        for (Segment segment : segments) {
+            Utils.checkInterrupted();
+            buildSentences(iterator, segment.number(), segment.source(), batch.sentences(), batch.segmentNumbers());
+        }
+        stage.end(batch.sentences().size());
+        return new FileSentences(batch, segments.size());
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException(e.getMessage());
+            interrupted.initCause(e);
+            throw interrupted;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            // the pool wraps checked exceptions thrown by callables
+            for (Throwable t = cause; t != null; t = t.getCause()) {
+                if (t instanceof IOException io) {
+                    throw io;
                 }
             }
-        } else {
-            List<Element> children = e.getChildren();
-            Iterator<Element> it = children.iterator();
-            while (it.hasNext()) {
-                buildSentences(it.next());
+            if (cause instanceof RuntimeException re) {
+                throw re;
             }
+            throw new IOException(cause.getMessage(), cause);
         }
     }
 
-    private void preProcess() {
-        for (int i = 0; i < sentences.size(); i++) {
-            String[] array = getChunks(sentences.get(i));
-            chunks.add(array);
+    private void addSegment(Segment segment) throws InterruptedIOException {
+        Utils.checkInterrupted();
+        pendingSegments.add(segment);
+        if (pendingSegments.size() >= SEGMENT_BATCH) {
+            flushSegments();
         }
     }
 
-    private void termStatistics() {
-        terms = new Vector<>();
-        index = new HashMap<>();
-        for (int i = 0; i < sentences.size(); i++) {
-            String[] chunkArray = chunks.get(i);
-            for (int j = 0; j < chunkArray.length; j++) {
-                String chunk = chunkArray[j];
-                List<Token> tokens = getTokens(chunk, j == 0);
-                for (int k = 0; k < tokens.size(); k++) {
-                    Token token = tokens.get(k);
-                    String key = token.getLower();
-                    if (!index.containsKey(key)) {
-                        terms.add(new Term(token.getText()));
-                        index.put(key, terms.size() - 1);
-                    }
-                    int idx = index.get(key);
-                    Term term = terms.get(idx);
-                    term.increaseFrequency();
-                    term.setSentence(i);
-                    if (Token.ACRONYM.equals(token.getTag())) {
-                        term.increaseAcronym();
-                    }
-                    if (Token.UPPERCASE.equals(token.getTag())) {
-                        term.increaseUpperCase();
-                    }
-                    for (int m = 1; m <= WINDOW; m++) {
-                        if (k - m >= 0) {
-                            Token previous = tokens.get(k - m);
-                            if (previous.isRelatable()) {
-                                term.addLeft(previous.getLower());
-                            }
-                        }
-                        if (k + m < tokens.size()) {
-                            Token next = tokens.get(k + m);
-                            if (next.isRelatable()) {
-                                term.addRight(next.getLower());
-                            }
-                        }
-                    }
+    /**
+     * Splits the pending segments into sentences. With more than one thread
+     * each worker uses its own sentence iterator and results are appended in
+     * segment order.
+     */
+    private void flushSegments() throws InterruptedIOException {
+        Stage stage = Stage.start("buildSentences");
+        int count = sentences.size();
+        if (pool == null) {
+            for (Segment segment : pendingSegments) {
+                Utils.checkInterrupted();
+                buildSentences(sentenceIterator, segment.number(), segment.source(), sentences,
+                        sentenceToSegmentNumber);
+            }
+            pendingSegments.clear();
+            stage.end(sentences.size() - count);
+            return;
+        }
+        int[] bounds = partition(pendingSegments.size());
+        List<ForkJoinTask<SentenceBatch>> tasks = new ArrayList<>();
+        for (int p = 0; p < bounds.length - 1; p++) {
+            List<Segment> range = pendingSegments.subList(bounds[p], bounds[p + 1]);
+            tasks.add(pool.submit(() -> {
+                BreakIterator iterator = BreakIterator.getSentenceInstance(locale);
+                SentenceBatch batch = new SentenceBatch(new ArrayList<>(), new ArrayList<>());
+                for (Segment segment : range) {
+                    buildSentences(iterator, segment.number(), segment.source(), batch.sentences(),
+                            batch.segmentNumbers());
                 }
+                return batch;
+            }));
+        }
+        for (ForkJoinTask<SentenceBatch> task : tasks) {
+            SentenceBatch batch = task.join();
+            sentences.addAll(batch.sentences());
+            sentenceToSegmentNumber.addAll(batch.segmentNumbers());
+        }
+        pendingSegments.clear();
+        stage.end(sentences.size() - count);
+    }
+
+    /**
+     * Splits a range of the given size in contiguous parts, one per thread.
+     * 
+     * @return the start of each part followed by the size of the range
+     */
+    private int[] partition(int size) {
+        int parts = Math.max(1, Math.min(threads, size));
+        int[] bounds = new int[parts + 1];
+        for (int p = 0; p <= parts; p++) {
+            bounds[p] = (int) ((long) size * p / parts);
+        }
+        return bounds;
+    }
+
+    private void endSegments() throws InterruptedIOException {
+        if (!pendingSegments.isEmpty()) {
+            flushSegments();
+        }
+    }
+
+    private void process(ExtractionOptions options) throws IOException {
+        Utils.checkInterrupted();
+        Stage stage = Stage.start("preProcess");
+        preProcess();
+        stage.end(chunks.size());
+        Utils.checkInterrupted();
+        stage = Stage.start("termStatistics");
+        termStatistics();
+        stage.end(terms.size());
+        Utils.checkInterrupted();
+        stage = Stage.start("featureComputation");
+        featureComputation();
+        stage.end(terms.size());
+        Utils.checkInterrupted();
+        stage = Stage.start("generateCandidates");
+        collectCandidates(options.getMaxTermLength(), options.getMinFrequency());
+        stage.end(terms.size());
+        Utils.checkInterrupted();
+        stage = Stage.start("filterTerms");
+        filterTerms(options.getMinFrequency(), options.getMaxScore(), options.isRelevant());
+        stage.end(terms.size());
+        Utils.checkInterrupted();
+        stage = Stage.start("deduplicateTerms");
+        deduplicateTerms();
+        stage.end(terms.size());
+    }
+
+    static void buildSentences(BreakIterator iterator, int segmentNumber, String sourceText,
+            List<String> sentenceList, List<Integer> segmentNumbers) {
+        if (sourceText == null || sourceText.isBlank()) {
+            // Skip segments without source text
+            return;
+        }
+        iterator.setText(sourceText);
+        int start = iterator.first();
+        for (int end = iterator.next(); end != BreakIterator.DONE; start = end, end = iterator.next()) {
+            String sentence = sourceText.substring(start, end).replace('\u00A0', ' ');
+            sentenceList.add(sentence.strip());
+            segmentNumbers.add(segmentNumber);
+        }
+    }
+
+    final void preProcess() throws InterruptedIOException {
+        if (pool == null) {
+            for (int i = 0; i < sentences.size(); i++) {
+                Utils.checkInterrupted();
+                String[] array = getChunks(sentences.get(i));
+                chunks.add(array);
             }
+            return;
+        }
+        String[][] result = new String[sentences.size()][];
+        int[] bounds = partition(result.length);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int p = 0; p < bounds.length - 1; p++) {
+            int from = bounds[p];
+            int to = bounds[p + 1];
+            tasks.add(pool.submit(() -> {
+                for (int i = from; i < to; i++) {
+                    result[i] = getChunks(sentences.get(i));
+                }
+            }));
         }
+        tasks.forEach(ForkJoinTask::join);
+        chunks.addAll(Arrays.asList(result));
     }
 
-    private void featureComputation() {
+    final void termStatistics() throws InterruptedIOException {
+        int[] bounds = partition(sentences.size());
+        if (pool == null || bounds.length < 3) {
+            statistics = new TermStatistics(locale, stopWords, cacheTokens);
+            statistics.collect(chunks, 0, sentences.size());
+        } else {
+            // each worker collects the statistics of a range of sentences
+            List<ForkJoinTask<TermStatistics>> tasks = new ArrayList<>();
+            for (int p = 0; p < bounds.length - 1; p++) {
+                int from = bounds[p];
+                int to = bounds[p + 1];
+                tasks.add(pool.submit(() -> {
+                    TermStatistics partial = new TermStatistics(locale, stopWords, cacheTokens);
+                    partial.collect(chunks, from, to);
+                    return partial;
+                }));
+            }
+            // merge in sentence order so the result matches a sequential run
+            statistics = tasks.get(0).join();
+            for (int p = 1; p < tasks.size(); p++) {
+                statistics.merge(tasks.get(p).join());
+            }
+        }
+        terms = statistics.getTerms();
+        index = statistics.getWords();
+        forms = statistics.getForms();
+        tokenCache = statistics.getTokens();
+        if (cacheTokens) {
+            // the cached tokens replace the chunks
+            chunks.clear();
+        }
+    }
+
+    final void featureComputation() {
         List<Integer> frequencies = new Vector<>();
         int maxFrequency = 0;
         int sumFrequency = 0;
@@ -294,7 +732,7 @@ public class TermExtractor {
         }
     }
 
-    private String[] getChunks(String sentence) {
+    static String[] getChunks(String sentence) {
         List<String> list = new Vector<>();
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < sentence.length(); i++) {
@@ -321,7 +759,7 @@ public class TermExtractor {
         return list.toArray(new String[list.size()]);
     }
 
-    private boolean isPunctuation(char c) {
+    private static boolean isPunctuation(char c) {
         int type = Character.getType(c);
         return type == Character.CONNECTOR_PUNCTUATION || type == Character.DASH_PUNCTUATION
                 || type == Character.END_PUNCTUATION || type == Character.FINAL_QUOTE_PUNCTUATION
@@ -329,26 +767,6 @@ public class TermExtractor {
                 || type == Character.START_PUNCTUATION;
     }
 
-    private List<Token> getTokens(String chunk, boolean firstChunk) {
-        List<String> words = new Vector<>();
-        if (!chunk.isBlank()) {
-            wordsIterator.setText(chunk);
-            int start = wordsIterator.first();
-            for (int end = wordsIterator.next(); end != BreakIterator.DONE; start = end, end = wordsIterator.next()) {
-                String word = chunk.substring(start, end);
-                if (!word.isBlank()) {
-                    words.add(word);
-                }
-            }
-        }
-        List<Token> tokens = new Vector<>();
-        for (int i = 0; i < words.size(); i++) {
-            String word = words.get(i);
-            tokens.add(new Token(word, isStopWord(word), locale, i == 0 && firstChunk));
-        }
-        return tokens;
-    }
-
     private boolean isStopWord(String token) {
         return stopWords.contains(token.toLowerCase(locale));
     }
@@ -369,45 +787,126 @@ public class TermExtractor {
         return Math.sqrt(variance);
     }
 
+    /**
+     * @throws UncheckedIOException if candidates counted on disk cannot be
+     *                              written or read
+     */
     public void generateCandidates(int maxTermLenght, int minFrequency, double maxScore, boolean relevant) {
-        for (int i = 0; i < chunks.size(); i++) {
-            String[] array = chunks.get(i);
-            for (int j = 0; j < array.length; j++) {
-                String chunk = array[j];
-                List<Token> tokens = getTokens(chunk, j == 0);
-                for (int h = 0; h < tokens.size(); h++) {
-                    List<Token> candidate = new Vector<>();
-                    Token token = tokens.get(h);
-                    if (token.isRelatable()) {
-                        for (int k = 0; k < maxTermLenght && (h + k) < tokens.size(); k++) {
-                            candidate.add(tokens.get(h + k));
-                            StringBuilder sb = new StringBuilder();
-                            Iterator<Token> it = candidate.iterator();
-                            while (it.hasNext()) {
-                                sb.append(it.next().getText());
-                                sb.append(' ');
-                            }
-                            String string = sb.toString().strip();
-                            if (!candidate.get(0).isStopWord() && !candidate.get(candidate.size() - 1).isStopWord()) {
-                                String key = string.toLowerCase();
-                                if (!index.containsKey(key)) {
-                                    terms.add(new Term(string));
-                                    index.put(key, terms.size() - 1);
-                                }
-                                int idx = index.get(key);
-                                Term term = terms.get(idx);
-                                if (term.getText().split(" ").length > 1) {
-                                    term.increaseFrequency();
-                                    term.setSentence(i);  // Track which sentence this multi-word term appears in
-                                }
-                                // Use actual term frequency for score calculation
-                                term.setScore(calcCombinedScore(candidate, term.getTermFrequency()));
-                            }
+        try {
+            collectCandidates(maxTermLenght, minFrequency);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        filterTerms(minFrequency, maxScore, relevant);
+    }
+
+    /**
+     * Counts the candidates of all sentences, then scores each candidate once
+     * from its final frequency, so scores do not depend on the order of the
+     * occurrences. Single words are scored first and multi-word candidates
+     * from the resulting scores of their words. Multi-word candidates found at
+     * least <code>minFrequency</code> times are added to the terms, with a
+     * text built once from the words of their first occurrence; with a
+     * candidate memory budget they are counted in runs on disk.
+     */
+    private void collectCandidates(int maxTermLenght, int minFrequency) throws IOException {
+        int words = index.size();
+        double[] wordScores = new double[words];
+        boolean[] stop = new boolean[words];
+        for (int w = 0; w < words; w++) {
+            wordScores[w] = terms.get(w).getScore();
+            stop[w] = stopWords.contains(index.get(w));
+        }
+        int[] uses = new int[words];
+        List<CandidateRuns.Candidate> candidates;
+        try (CandidateRuns runs = new CandidateRuns(candidateMemory > 0 ? candidateMemory : Long.MAX_VALUE)) {
+            countCandidates(maxTermLenght, runs, uses);
+            candidates = runs.finish(minFrequency);
+            if (debug && runs.getRunCount() > 0) {
+                MessageFormat mf = new MessageFormat(Messages.getString("TermExtractor.17"));
+                logger.log(Level.INFO, mf.format(new Object[] { runs.getRunCount(), candidates.size() }));
+            }
+        }
+        for (int w = 0; w < words; w++) {
+            if (uses[w] > 0) {
+                Term term = terms.get(w);
+                term.setScore(combinedScore(new int[] { w }, wordScores, stop, term.getTermFrequency()));
+                wordScores[w] = term.getScore();
+            }
+        }
+        Term[] scored = new Term[candidates.size()];
+        int[] bounds = partition(scored.length);
+        if (pool == null || bounds.length < 3) {
+            scoreCandidates(candidates, 0, scored.length, wordScores, stop, scored);
+        } else {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (int p = 0; p < bounds.length - 1; p++) {
+                int from = bounds[p];
+                int to = bounds[p + 1];
+                tasks.add(pool.submit(() -> scoreCandidates(candidates, from, to, wordScores, stop, scored)));
+            }
+            tasks.forEach(ForkJoinTask::join);
+        }
+        terms.addAll(Arrays.asList(scored));
+    }
+
+    private void scoreCandidates(List<CandidateRuns.Candidate> candidates, int from, int to, double[] wordScores,
+            boolean[] stop, Term[] scored) {
+        for (int i = from; i < to; i++) {
+            CandidateRuns.Candidate candidate = candidates.get(i);
+            Term term = new Term(candidateText(candidate.forms));
+            SentenceOffsets offsets = candidate.sentences;
+            for (int s = 0; s < offsets.size(); s++) {
+                term.increaseFrequency();
+                term.setSentence(offsets.get(s));
+            }
+            term.setScore(combinedScore(candidate.words, wordScores, stop, term.getTermFrequency()));
+            scored[i] = term;
+        }
+    }
+
+    /**
+     * Counts how many candidates start with each single word and the
+     * occurrences of multi-word candidates, identified by the ids of their
+     * words.
+     */
+    private void countCandidates(int maxTermLenght, CandidateRuns runs, int[] uses) throws IOException {
+        for (int i = 0; i < sentences.size(); i++) {
+            Utils.checkInterrupted();
+            SentenceTokens tokens = cacheTokens ? tokenCache.get(i) : statistics.tokenize(chunks.get(i));
+            for (int c = 0; c < tokens.chunkCount(); c++) {
+                int start = tokens.chunkStart(c);
+                int end = tokens.chunkEnd(c);
+                for (int h = start; h < end; h++) {
+                    if (!tokens.is(h, SentenceTokens.RELATABLE) || tokens.is(h, SentenceTokens.STOP_WORD)) {
+                        continue;
+                    }
+                    uses[tokens.word(h)]++;
+                    long hash = CandidateRuns.extend(0, tokens.word(h));
+                    for (int k = 1; k < maxTermLenght && (h + k) < end; k++) {
+                        hash = CandidateRuns.extend(hash, tokens.word(h + k));
+                        if (!tokens.is(h + k, SentenceTokens.STOP_WORD)) {
+                            runs.add(tokens, h, k + 1, hash, i);
                         }
                     }
                 }
             }
         }
+        tokenCache.clear();
+    }
+
+    private String candidateText(int[] formIds) {
+        StringBuilder sb = new StringBuilder();
+        for (int form : formIds) {
+            if (!sb.isEmpty()) {
+                sb.append(' ');
+            }
+            sb.append(forms.get(form));
+        }
+        return sb.toString().strip();
+    }
+
+    private void filterTerms(int minFrequency, double maxScore, boolean relevant) {
         if (relevant) {
             terms.removeIf(term -> term.getRelevance() < 1.0);
         }
@@ -418,7 +917,7 @@ public class TermExtractor {
         terms.removeIf(term -> term.getText().length() < 2);
     }
 
-    private boolean isNumber(String term) {
+    static boolean isNumber(String term) {
         try {
             Double.parseDouble(term);
             return true;
@@ -427,7 +926,53 @@ public class TermExtractor {
         }
     }
 
-    private void deduplicateTerms() {
+    final void deduplicateTerms() {
+        terms = deduplicate(terms, locale);
+        
+        // Update terms list and index
+        index = new Vocabulary();
+        for (int i = 0; i < terms.size(); i++) {
+            index.add(terms.get(i).getText().toLowerCase(locale));
+        }
+    }
+
+    /**
+     * Selects the best terms using a heap bounded to <code>k</code> entries,
+     * avoiding a sort of the whole list. Equal terms are ranked by position in
+     * the list, so the result matches a stable sort of the whole list.
+     */
+    static List<Term> topTerms(List<Term> list, int k) {
+        List<Term> result = new ArrayList<>();
+        if (k <= 0 || list.isEmpty()) {
+            return result;
+        }
+        Comparator<Integer> order = (a, b) -> {
+            int compare = list.get(a).compareTo(list.get(b));
+            return compare != 0 ? compare : Integer.compare(a, b);
+        };
+        // the head of the heap is the worst of the terms kept so far
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(k, list.size()), order.reversed());
+        for (int i = 0; i < list.size(); i++) {
+            if (heap.size() < k) {
+                heap.add(i);
+            } else if (order.compare(i, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+        Integer[] best = heap.toArray(new Integer[heap.size()]);
+        Arrays.sort(best, order);
+        for (Integer i : best) {
+            result.add(list.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Merges terms that differ only in case or by a typo, keeping the best
+     * scored term of each group.
+     */
+    static List<Term> deduplicate(List<Term> terms, Locale locale) {
         int originalCount = terms.size();
         Map<String, Term> normalized = new HashMap<>();
         List<Term> deduplicated = new Vector<>();
@@ -454,23 +999,39 @@ public class TermExtractor {
         // Second pass: merge similar terms using Levenshtein distance
         List<Term> uniqueTerms = new Vector<>(normalized.values());
         boolean[] merged = new boolean[uniqueTerms.size()];
-        
+        String[] texts = new String[uniqueTerms.size()];
+
+        // Index only texts long enough to be similar to another one: 2 edits
+        // need more than 20 characters and 1 edit more than 10, so with a length
+        // difference of at most 2 both texts have at least MIN_SIMILAR_LENGTH
+        BKTree tree = new BKTree();
+        for (int i = 0; i < uniqueTerms.size(); i++) {
+            texts[i] = uniqueTerms.get(i).getText().toLowerCase(locale);
+            if (texts[i].length() >= MIN_SIMILAR_LENGTH) {
+                tree.add(texts[i], i);
+            }
+        }
+
         for (int i = 0; i < uniqueTerms.size(); i++) {
             if (merged[i]) {
                 continue;
             }
             Term term1 = uniqueTerms.get(i);
-            String text1 = term1.getText().toLowerCase(locale);
+            String text1 = texts[i];
             Term bestTerm = term1;
-            
-            // Look for similar terms
-            for (int j = i + 1; j < uniqueTerms.size(); j++) {
-                if (merged[j]) {
+            if (text1.length() < MIN_SIMILAR_LENGTH) {
+                deduplicated.add(bestTerm);
+                continue;
+            }
+
+            // Look for similar terms among those within MAX_EDITS, in list order
+            for (int j : tree.search(text1, MAX_EDITS)) {
+                if (j <= i || merged[j]) {
                     continue;
                 }
                 Term term2 = uniqueTerms.get(j);
-                String text2 = term2.getText().toLowerCase(locale);
-                
+                String text2 = texts[j];
+
                 // Check if terms are similar based on Levenshtein distance
                 if (areSimilar(text1, text2)) {
                     merged[j] = true;
@@ -492,26 +1053,15 @@ public class TermExtractor {
             MessageFormat mf = new MessageFormat(Messages.getString("TermExtractor.12"));
             logger.log(Level.INFO, mf.format(new Object[] { originalCount, deduplicated.size(), (originalCount - deduplicated.size()) }));
         }
-        
-        // Update terms list and index
-        terms = deduplicated;
-        index.clear();
-        for (int i = 0; i < terms.size(); i++) {
-            index.put(terms.get(i).getText().toLowerCase(locale), i);
-        }
+        return deduplicated;
     }
     
-    private boolean areSimilar(String text1, String text2) {
+    private static boolean areSimilar(String text1, String text2) {
         // Same text is not similar, it's identical (already handled)
         if (text1.equals(text2)) {
             return false;
         }
         
-        // Only use Levenshtein distance for fuzzy matching (typos, minor variations)
-        // Don't merge based on substring relationships - those are different terms
-        int distance = LevenshteinDistance.distance(text1, text2);
-        int maxLength = Math.max(text1.length(), text2.length());
-        
         // Only consider similar if:
         // 1. Length difference is small (no more than 2 characters)
         // 2. Levenshtein distance is very small (1-2 edits for typos)
@@ -519,47 +1069,43 @@ public class TermExtractor {
         if (Math.abs(text1.length() - text2.length()) > 2) {
             return false;
         }
+
+        // Only use Levenshtein distance for fuzzy matching (typos, minor variations)
+        // Don't merge based on substring relationships - those are different terms
+        int distance = LevenshteinDistance.distanceWithin(text1, text2, MAX_EDITS);
+        int maxLength = Math.max(text1.length(), text2.length());
         
         // For very similar lengths, allow only 1-2 character differences (typos)
         // Use 90% similarity threshold - much stricter than before
         double similarity = 1.0 - ((double) distance / maxLength);
-        return similarity > 0.90 && distance <= 2;
+        return similarity > 0.90 && distance <= MAX_EDITS;
     }
 
-    private double calcCombinedScore(List<Token> candidateTokens, int termFrequency) {
+    /**
+     * Combines the scores of the words of a candidate. A stop word inside the
+     * candidate contributes the probability of not being the bigram formed by
+     * its neighbours.
+     */
+    private static double combinedScore(int[] words, double[] wordScores, boolean[] stop, int termFrequency) {
         double prod = 1;
         double sum = 0;
-        // Ensure we don't divide by zero
-        if (termFrequency == 0) {
-            termFrequency = 1;
-        }
-        for (int i = 0; i < candidateTokens.size(); i++) {
-            Token token = candidateTokens.get(i);
-            int idx = index.get(token.getLower());
-            Term term = terms.get(idx);
-            if (!token.isStopWord()) {
-                prod *= term.getScore();
-                sum += term.getScore();
+        for (int i = 0; i < words.length; i++) {
+            if (!stop[words[i]]) {
+                prod *= wordScores[words[i]];
+                sum += wordScores[words[i]];
             } else {
-                double probBefore = 0;
-                double probAfter = 0;
-                if (i > 0) {
-                    Token tokenBefore = candidateTokens.get(i - 1);
-                    idx = index.get(tokenBefore.getLower());
-                    Term termBefore = terms.get(idx);
-                    probBefore = termBefore.getScore();
-                }
-                if (i < candidateTokens.size() - 1) {
-                    Token tokenAfter = candidateTokens.get(i + 1);
-                    idx = index.get(tokenAfter.getLower());
-                    Term termAfter = terms.get(idx);
-                    probAfter = termAfter.getScore();
-                }
-                double bigramProbability = probBefore * probAfter;
+                double probBefore = i > 0 ? wordScores[words[i - 1]] : 0;
+                double probAfter = i < words.length - 1 ? wordScores[words[i + 1]] : 0;
+                // words that start no candidate keep their raw score, which can exceed 1
+                double bigramProbability = Math.min(1, probBefore * probAfter);
                 prod *= 1 + (1 - bigramProbability);
                 sum += (1 - bigramProbability);
             }
         }
+        // Ensure we don't divide by zero
+        if (termFrequency == 0) {
+            termFrequency = 1;
+        }
         return prod / (termFrequency * (sum + 1));
     }
 }
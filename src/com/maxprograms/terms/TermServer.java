@@ -0,0 +1,638 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONObject;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves monolingual and bilingual extractions over HTTP, so many small jobs
+ * share one warm JVM. Requests are read and answered on virtual threads;
+ * extractions run on a fixed number of worker threads fed by a bounded queue.
+ * A request is rejected with status 503 when the queue is full and with
+ * status 504 when its result is not ready within the timeout. Uploaded files
+ * larger than the maximum upload size are rejected with status 413.
+ * <p>
+ * <code>POST /terms</code> and <code>POST /pairs</code> take an XLIFF file in
+ * the body; with a <code>path</code> parameter they process a file under the
+ * root folder instead, and also accept <code>GET</code>. Other query
+ * parameters have the names and defaults of the command line options of
+ * {@link TermExtractor} and {@link BilingualExtraction}. <code>GET
+ * /status</code> describes the server.
+ */
+public class TermServer {
+
+    private static Logger logger = System.getLogger(TermServer.class.getName());
+    private static boolean debug = false;
+
+    private HttpServer server;
+    private ThreadPoolExecutor workers;
+    private ExecutorService requests;
+    private Path root;
+    private long timeout;
+    private long maxUpload;
+    private AtomicLong rejected;
+    private AtomicLong timedOut;
+
+    /**
+     * An error that is reported to the client with the given HTTP status.
+     */
+    private static class RequestException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+        private final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Runs an extraction from an XLIFF file to an output file.
+     */
+    private interface Extraction {
+        void run(String xliff, String output) throws Exception;
+    }
+
+    /**
+     * An extraction and the temporary files it reads and writes. The files are
+     * deleted by {@link #release()}, or when the extraction ends if it was
+     * released while running.
+     */
+    private static class Job implements Callable<Void> {
+
+        private final Extraction extraction;
+        private String xliff;
+        private Path upload;
+        private Path output;
+        private boolean started;
+        private boolean done;
+        private boolean released;
+
+        Job(Extraction extraction) {
+            this.extraction = extraction;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            synchronized (this) {
+                if (released) {
+                    return null;
+                }
+                started = true;
+            }
+            try {
+                extraction.run(xliff, output.toString());
+                return null;
+            } finally {
+                synchronized (this) {
+                    done = true;
+                    if (released) {
+                        delete();
+                    }
+                }
+            }
+        }
+
+        synchronized void release() {
+            released = true;
+            if (!started || done) {
+                delete();
+            }
+        }
+
+        private void delete() {
+            try {
+                if (upload != null) {
+                    Files.deleteIfExists(upload);
+                }
+                if (output != null) {
+                    Files.deleteIfExists(output);
+                }
+            } catch (IOException e) {
+                logger.log(Level.WARNING, e.getMessage());
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        args = Utils.fixPath(args);
+
+        String host = "localhost";
+        int port = 8080;
+        String root = "";
+        int workers = Runtime.getRuntime().availableProcessors();
+        int queue = 100;
+        int timeout = 60;
+        int maxUpload = 100;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if ("-host".equals(args[i]) && i + 1 < args.length) {
+                    host = args[i + 1];
+                }
+                if ("-port".equals(args[i]) && i + 1 < args.length) {
+                    port = Integer.parseInt(args[i + 1]);
+                }
+                if ("-root".equals(args[i]) && i + 1 < args.length) {
+                    root = args[i + 1];
+                }
+                if ("-workers".equals(args[i]) && i + 1 < args.length) {
+                    workers = Integer.parseInt(args[i + 1]);
+                }
+                if ("-queue".equals(args[i]) && i + 1 < args.length) {
+                    queue = Integer.parseInt(args[i + 1]);
+                }
+                if ("-timeout".equals(args[i]) && i + 1 < args.length) {
+                    timeout = Integer.parseInt(args[i + 1]);
+                }
+                if ("-maxUpload".equals(args[i]) && i + 1 < args.length) {
+                    maxUpload = Integer.parseInt(args[i + 1]);
+                }
+                if ("-version".equals(args[i])) {
+                    MessageFormat mf = new MessageFormat(Messages.getString("TermExtractor.4"));
+                    logger.log(Level.INFO, mf.format(new String[] { Constants.VERSION, Constants.BUILD }));
+                    System.exit(0);
+                }
+                if ("-help".equals(args[i])) {
+                    usage();
+                    System.exit(0);
+                }
+                if ("-debug".equals(args[i])) {
+                    debug = true;
+                }
+                if ("-lang".equals(args[i]) && i + 1 < args.length) {
+                    String lang = args[i + 1];
+                    if ("en".equals(lang) || "es".equals(lang)) {
+                        Locale.setDefault(Locale.forLanguageTag(lang));
+                    }
+                }
+            }
+            if (port < 0 || port > 65535) {
+                logger.log(Level.ERROR, Messages.getString("TermServer.2"));
+                System.exit(1);
+            }
+            if (workers < 1) {
+                logger.log(Level.ERROR, Messages.getString("TermServer.3"));
+                System.exit(1);
+            }
+            if (queue < 1) {
+                logger.log(Level.ERROR, Messages.getString("TermServer.4"));
+                System.exit(1);
+            }
+            if (timeout < 1) {
+                logger.log(Level.ERROR, Messages.getString("TermServer.5"));
+                System.exit(1);
+            }
+            if (maxUpload < 1) {
+                logger.log(Level.ERROR, Messages.getString("TermServer.15"));
+                System.exit(1);
+            }
+            File rootFolder = null;
+            if (!root.isEmpty()) {
+                rootFolder = new File(root);
+                if (!rootFolder.isDirectory()) {
+                    MessageFormat mf = new MessageFormat(Messages.getString("TermServer.6"));
+                    logger.log(Level.ERROR, mf.format(new String[] { root }));
+                    System.exit(1);
+                }
+            }
+            TermServer termServer = new TermServer(new InetSocketAddress(host, port), workers, queue,
+                    timeout, maxUpload, rootFolder);
+            Runtime.getRuntime().addShutdownHook(new Thread(termServer::stop));
+            termServer.start();
+            MessageFormat mf = new MessageFormat(Messages.getString("TermServer.1"));
+            logger.log(Level.INFO, mf.format(new String[] { host,
+                    String.valueOf(termServer.getPort()) }));
+        } catch (Exception e) {
+            logger.log(Level.ERROR, e.getMessage());
+            if (debug) {
+                e.printStackTrace();
+            }
+            System.exit(1);
+        }
+    }
+
+    private static void usage() {
+        logger.log(Level.INFO, Messages.getString("TermServer.help"));
+    }
+
+    /**
+     * @param workers number of extractions that run at the same time
+     * @param queue   number of extractions that may wait for a worker
+     * @param timeout   seconds a request waits for its result, including the
+     *                  time spent in the queue
+     * @param maxUpload megabytes accepted in the body of a request
+     * @param root      folder of the files that requests can read by path, or
+     *                  <code>null</code> to accept only uploaded files
+     */
+    public TermServer(InetSocketAddress address, int workers, int queue, int timeout, int maxUpload, File root)
+            throws IOException {
+        this.timeout = TimeUnit.SECONDS.toMillis(timeout);
+        this.maxUpload = maxUpload * 1024L * 1024L;
+        this.root = root != null ? root.toPath().toRealPath() : null;
+        rejected = new AtomicLong();
+        timedOut = new AtomicLong();
+        this.workers = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queue), Thread.ofPlatform().name("terms-worker-", 0).factory());
+        requests = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(address, 0);
+        server.setExecutor(requests);
+        server.createContext("/terms", exchange -> handle(exchange, false));
+        server.createContext("/pairs", exchange -> handle(exchange, true));
+        server.createContext("/status", this::status);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, gives open exchanges a second to finish and
+     * interrupts the running extractions, which end at their next sentence or
+     * stage.
+     */
+    public void stop() {
+        server.stop(1);
+        workers.shutdownNow();
+        requests.shutdown();
+    }
+
+    /**
+     * @return the port the server listens on, useful when it was created with
+     *         port 0
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange, boolean bilingual) throws IOException {
+        try (exchange) {
+            Job job = null;
+            try {
+                String context = exchange.getHttpContext().getPath();
+                if (!context.equals(exchange.getRequestURI().getPath())) {
+                    MessageFormat mf = new MessageFormat(Messages.getString("TermServer.8"));
+                    throw new RequestException(404, mf.format(new String[] { exchange.getRequestURI().getPath() }));
+                }
+                Map<String, String> parameters = parameters(exchange.getRequestURI());
+                ResultFormat format = ResultFormat.forName(parameters.getOrDefault("format", "jsonl"));
+                if (format == null) {
+                    MessageFormat mf = new MessageFormat(Messages.getString("TermExtractor.15"));
+                    throw new RequestException(400, mf.format(new String[] { parameters.get("format") }));
+                }
+                job = new Job(bilingual ? pairs(parameters, format) : terms(parameters, format));
+                String method = exchange.getRequestMethod();
+                if (parameters.containsKey("path")) {
+                    if (!"GET".equals(method) && !"POST".equals(method)) {
+                        throw new RequestException(405, Messages.getString("TermServer.17"));
+                    }
+                    job.xliff = localFile(parameters.get("path"));
+                } else if ("POST".equals(method)) {
+                    checkLength(exchange);
+                    job.upload = Files.createTempFile("terms", ".xlf");
+                    upload(exchange.getRequestBody(), job.upload);
+                    job.xliff = job.upload.toString();
+                } else {
+                    throw new RequestException(405, Messages.getString("TermServer.9"));
+                }
+                job.output = Files.createTempFile("terms", "." + format.getExtension());
+                run(job);
+                exchange.getResponseHeaders().set("Content-Type", format.getMediaType());
+                exchange.sendResponseHeaders(200, Files.size(job.output));
+                try (OutputStream out = exchange.getResponseBody()) {
+                    Files.copy(job.output, out);
+                }
+            } catch (RequestException e) {
+                sendError(exchange, e.status, e.getMessage());
+            } catch (IOException e) {
+                if (exchange.getResponseCode() != -1) {
+                    // the response was already started, the client gets a truncated body
+                    throw e;
+                }
+                // the upload or a temporary file could not be written
+                sendError(exchange, 500, unexpected(e));
+            } finally {
+                if (job != null) {
+                    job.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Rejects a request whose declared length is over the limit before its
+     * body is read.
+     */
+    private void checkLength(HttpExchange exchange) throws RequestException {
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        try {
+            if (length != null && Long.parseLong(length.strip()) > maxUpload) {
+                throw tooLarge();
+            }
+        } catch (NumberFormatException e) {
+            // the copy of the body enforces the limit
+        }
+    }
+
+    /**
+     * Copies the body of a request, which may have no declared length, and
+     * stops as soon as it exceeds the limit.
+     */
+    private void upload(InputStream body, Path file) throws RequestException, IOException {
+        try (InputStream in = body; OutputStream out = Files.newOutputStream(file)) {
+            byte[] buffer = new byte[65536];
+            long total = 0;
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                total += read;
+                if (total > maxUpload) {
+                    throw tooLarge();
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private RequestException tooLarge() {
+        MessageFormat mf = new MessageFormat(Messages.getString("TermServer.16"));
+        return new RequestException(413, mf.format(new String[] { String.valueOf(maxUpload / (1024 * 1024)) }));
+    }
+
+    /**
+     * Queues the job and waits for it within the timeout.
+     */
+    private void run(Job job) throws RequestException, IOException {
+        Future<Void> future;
+        try {
+            future = workers.submit(job);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new RequestException(503, Messages.getString("TermServer.10"));
+        }
+        try {
+            future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // a queued job leaves the queue, a running one stops at its next sentence or stage
+            future.cancel(true);
+            workers.purge();
+            timedOut.incrementAndGet();
+            MessageFormat mf = new MessageFormat(Messages.getString("TermServer.11"));
+            throw new RequestException(504, mf.format(new String[] { String.valueOf(timeout / 1000) }));
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RequestException requestException) {
+                throw requestException;
+            }
+            if (cause instanceof IOException) {
+                // the file is not valid XLIFF or cannot be processed
+                throw new RequestException(422, cause.getMessage());
+            }
+            throw new RequestException(500, unexpected(cause));
+        }
+    }
+
+    /**
+     * Logs an error that is not caused by the request.
+     * 
+     * @return the message sent to the client
+     */
+    private static String unexpected(Throwable cause) {
+        MessageFormat mf = new MessageFormat(Messages.getString("TermServer.12"));
+        logger.log(Level.ERROR, mf.format(new String[] { cause.getClass().getSimpleName(), cause.getMessage() }));
+        if (debug) {
+            cause.printStackTrace();
+        }
+        return cause.getClass().getSimpleName() + ": " + cause.getMessage();
+    }
+
+    private static Extraction terms(Map<String, String> parameters, ResultFormat format)
+            throws RequestException {
+        int maxTermLength = intValue(parameters, "maxLength", 3);
+        int minFrequency = intValue(parameters, "minFreq", 3);
+        double maxScore = doubleValue(parameters, "maxScore", 10.0);
+        boolean relevant = Boolean.parseBoolean(parameters.getOrDefault("relevant", "false"));
+        int top = intValue(parameters, "top", 0);
+        if (minFrequency < 1) {
+            throw new RequestException(400, Messages.getString("TermExtractor.6"));
+        }
+        if (maxScore <= 0) {
+            throw new RequestException(400, Messages.getString("TermExtractor.7"));
+        }
+        if (maxTermLength < 1) {
+            throw new RequestException(400, Messages.getString("TermExtractor.8"));
+        }
+        if (top < 0) {
+            throw new RequestException(400, Messages.getString("TermExtractor.14"));
+        }
+        ExtractionOptions options = new ExtractionOptions(maxTermLength, minFrequency, maxScore, relevant);
+        return (xliff, output) -> {
+            TermExtractor extractor = new TermExtractor(xliff, options);
+            List<Term> list;
+            if (top > 0) {
+                list = extractor.getTopTerms(top);
+            } else {
+                list = extractor.getTerms();
+                Collections.sort(list);
+            }
+            TermExtractor.write(list, extractor.getLanguage(), format, output);
+        };
+    }
+
+    private static Extraction pairs(Map<String, String> parameters, ResultFormat format)
+            throws RequestException {
+        int maxTermLength = intValue(parameters, "maxLength", 5);
+        int minFrequency = intValue(parameters, "minFreq", 3);
+        double maxScore = doubleValue(parameters, "maxScore", 10.0);
+        int minCoOccurrence = intValue(parameters, "minCoOccurrence", 1);
+        int maxPairs = intValue(parameters, "maxPairs", 0);
+        double minCoOccurrenceRatio = doubleValue(parameters, "minCoOccurrenceRatio", 0.7);
+        if (minFrequency < 1) {
+            throw new RequestException(400, Messages.getString("BilingualExtraction.1"));
+        }
+        if (maxScore <= 0) {
+            throw new RequestException(400, Messages.getString("BilingualExtraction.2"));
+        }
+        if (maxTermLength < 1) {
+            throw new RequestException(400, Messages.getString("BilingualExtraction.3"));
+        }
+        if (minCoOccurrence < 1) {
+            throw new RequestException(400, Messages.getString("BilingualExtraction.4"));
+        }
+        if (maxPairs < 0) {
+            throw new RequestException(400, Messages.getString("BilingualExtraction.5"));
+        }
+        if (minCoOccurrenceRatio < 0.0 || minCoOccurrenceRatio > 1.0) {
+            throw new RequestException(400, Messages.getString("BilingualExtraction.6"));
+        }
+        return (xliff, output) -> {
+            // the output is only written when the file has final segments
+            Files.delete(Path.of(output));
+            BilingualExtraction extractor = new BilingualExtraction();
+            extractor.setFormat(format);
+            extractor.extract(xliff, output, minFrequency, maxScore, maxTermLength, minCoOccurrence, maxPairs,
+                    minCoOccurrenceRatio);
+            if (!Files.exists(Path.of(output))) {
+                throw new RequestException(422, Messages.getString("BilingualExtraction.11"));
+            }
+        };
+    }
+
+    /**
+     * @return the real path of a file under the root folder
+     */
+    private String localFile(String path) throws RequestException, IOException {
+        if (root == null) {
+            throw new RequestException(403, Messages.getString("TermServer.13"));
+        }
+        Path file;
+        try {
+            file = root.resolve(path).toRealPath();
+        } catch (NoSuchFileException e) {
+            MessageFormat mf = new MessageFormat(Messages.getString("TermExtractor.9"));
+            throw new RequestException(404, mf.format(new String[] { path }));
+        }
+        if (!file.startsWith(root)) {
+            MessageFormat mf = new MessageFormat(Messages.getString("TermServer.14"));
+            throw new RequestException(403, mf.format(new String[] { path }));
+        }
+        if (!Files.isRegularFile(file)) {
+            MessageFormat mf = new MessageFormat(Messages.getString("TermExtractor.9"));
+            throw new RequestException(404, mf.format(new String[] { path }));
+        }
+        return file.toString();
+    }
+
+    private void status(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            JSONObject json = new JSONObject();
+            json.put("version", Constants.VERSION);
+            json.put("build", Constants.BUILD);
+            json.put("workers", workers.getMaximumPoolSize());
+            json.put("active", workers.getActiveCount());
+            json.put("queued", workers.getQueue().size());
+            json.put("queueCapacity", workers.getQueue().size() + workers.getQueue().remainingCapacity());
+            json.put("completed", workers.getCompletedTaskCount());
+            json.put("rejected", rejected.get());
+            json.put("timedOut", timedOut.get());
+            send(exchange, 200, json);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        if (debug) {
+            logger.log(Level.INFO, status + " " + exchange.getRequestURI() + ": " + message);
+        }
+        JSONObject json = new JSONObject();
+        json.put("status", status);
+        json.put("error", message);
+        if (status == 503) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+        }
+        if (status == 405) {
+            exchange.getResponseHeaders().set("Allow", "GET, POST");
+        }
+        send(exchange, status, json);
+    }
+
+    private static void send(HttpExchange exchange, int status, JSONObject json) throws IOException {
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parameters(URI uri) {
+        Map<String, String> result = new HashMap<>();
+        String query = uri.getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return result;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals == -1 ? pair : pair.substring(0, equals);
+            String value = equals == -1 ? "" : pair.substring(equals + 1);
+            result.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+
+    private static int intValue(Map<String, String> parameters, String name, int defaultValue)
+            throws RequestException {
+        String value = parameters.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw invalid(name, value);
+        }
+    }
+
+    private static double doubleValue(Map<String, String> parameters, String name, double defaultValue)
+            throws RequestException {
+        String value = parameters.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw invalid(name, value);
+        }
+    }
+
+    private static RequestException invalid(String name, String value) {
+        MessageFormat mf = new MessageFormat(Messages.getString("TermServer.7"));
+        return new RequestException(400, mf.format(new String[] { name, value }));
+    }
+}
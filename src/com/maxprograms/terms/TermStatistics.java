@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.text.BreakIterator;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.Vector;
+
+/**
+ * Word statistics for a range of sentences. Each instance owns its word
+ * iterator, so different ranges can be processed in parallel and merged
+ * afterwards in sentence order, producing the same table as a sequential run.
+ * <p>
+ * Lowercase words and surface forms are interned in vocabularies; the id of a
+ * lowercase word is also the index of its term. Tags and the word id of a
+ * surface form are computed once, when the form is first seen.
+ */
+class TermStatistics {
+
+    private static final int WINDOW = 2;
+
+    private Locale locale;
+    private Set<String> stopWords;
+    private BreakIterator wordsIterator;
+    private boolean cacheTokens;
+
+    private List<Term> terms;
+    private Vocabulary words;
+    private Vocabulary forms;
+    private int[] formWords;
+    private byte[] formTags;
+    private List<SentenceTokens> tokens;
+
+    TermStatistics(Locale locale, Set<String> stopWords, boolean cacheTokens) {
+        this.locale = locale;
+        this.stopWords = stopWords;
+        this.cacheTokens = cacheTokens;
+        wordsIterator = BreakIterator.getWordInstance(locale);
+        terms = new Vector<>();
+        words = new Vocabulary();
+        forms = new Vocabulary();
+        formWords = new int[64];
+        formTags = new byte[64];
+        tokens = new Vector<>();
+    }
+
+    List<Term> getTerms() {
+        return terms;
+    }
+
+    Vocabulary getWords() {
+        return words;
+    }
+
+    Vocabulary getForms() {
+        return forms;
+    }
+
+    /**
+     * @return the tokens of each processed sentence, or an empty list when
+     *         tokens are not cached
+     */
+    List<SentenceTokens> getTokens() {
+        return tokens;
+    }
+
+    void collect(List<String[]> chunks, int from, int to) throws InterruptedIOException {
+        for (int i = from; i < to; i++) {
+            Utils.checkInterrupted();
+            SentenceTokens sentenceTokens = tokenize(chunks.get(i));
+            if (cacheTokens) {
+                tokens.add(sentenceTokens);
+            }
+            add(sentenceTokens, i);
+        }
+    }
+
+    /**
+     * Adds the occurrences of the words of a sentence to their terms.
+     */
+    void add(SentenceTokens sentenceTokens, int sentence) {
+        for (int c = 0; c < sentenceTokens.chunkCount(); c++) {
+            int start = sentenceTokens.chunkStart(c);
+            int end = sentenceTokens.chunkEnd(c);
+            for (int k = start; k < end; k++) {
+                Term term = terms.get(sentenceTokens.word(k));
+                term.increaseFrequency();
+                term.setSentence(sentence);
+                if (sentenceTokens.is(k, SentenceTokens.ACRONYM)) {
+                    term.increaseAcronym();
+                }
+                if (sentenceTokens.is(k, SentenceTokens.UPPERCASE)) {
+                    term.increaseUpperCase();
+                }
+                for (int m = 1; m <= WINDOW; m++) {
+                    if (k - m >= start && sentenceTokens.is(k - m, SentenceTokens.RELATABLE)) {
+                        term.addLeft(sentenceTokens.word(k - m));
+                    }
+                    if (k + m < end && sentenceTokens.is(k + m, SentenceTokens.RELATABLE)) {
+                        term.addRight(sentenceTokens.word(k + m));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Undoes {@link #add(SentenceTokens, int)} for a sentence.
+     */
+    void remove(SentenceTokens sentenceTokens, int sentence) {
+        for (int c = 0; c < sentenceTokens.chunkCount(); c++) {
+            int start = sentenceTokens.chunkStart(c);
+            int end = sentenceTokens.chunkEnd(c);
+            for (int k = start; k < end; k++) {
+                Term term = terms.get(sentenceTokens.word(k));
+                term.decreaseFrequency();
+                term.removeSentence(sentence);
+                if (sentenceTokens.is(k, SentenceTokens.ACRONYM)) {
+                    term.decreaseAcronym();
+                }
+                if (sentenceTokens.is(k, SentenceTokens.UPPERCASE)) {
+                    term.decreaseUpperCase();
+                }
+                for (int m = 1; m <= WINDOW; m++) {
+                    if (k - m >= start && sentenceTokens.is(k - m, SentenceTokens.RELATABLE)) {
+                        term.removeLeft(sentenceTokens.word(k - m));
+                    }
+                    if (k + m < end && sentenceTokens.is(k + m, SentenceTokens.RELATABLE)) {
+                        term.removeRight(sentenceTokens.word(k + m));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends the statistics of the range that follows this one.
+     */
+    void merge(TermStatistics next) {
+        int[] wordMap = new int[next.words.size()];
+        boolean[] added = new boolean[wordMap.length];
+        for (int i = 0; i < wordMap.length; i++) {
+            String key = next.words.get(i);
+            int idx = words.find(key);
+            if (idx == -1) {
+                terms.add(next.terms.get(i));
+                idx = words.add(key);
+                added[i] = true;
+            }
+            wordMap[i] = idx;
+        }
+        // context counters are keyed by word id, so they can only be
+        // translated once every word of the next range has an id here
+        for (int i = 0; i < wordMap.length; i++) {
+            if (added[i]) {
+                next.terms.get(i).remapContext(wordMap);
+            } else {
+                terms.get(wordMap[i]).merge(next.terms.get(i), wordMap);
+            }
+        }
+        int[] formMap = new int[next.forms.size()];
+        for (int i = 0; i < formMap.length; i++) {
+            int count = forms.size();
+            int id = forms.add(next.forms.get(i));
+            if (id == count) {
+                ensureFormCapacity(id);
+                formWords[id] = wordMap[next.formWords[i]];
+                formTags[id] = next.formTags[i];
+            }
+            formMap[i] = id;
+        }
+        for (SentenceTokens sentenceTokens : next.tokens) {
+            sentenceTokens.remap(wordMap, formMap);
+            tokens.add(sentenceTokens);
+        }
+    }
+
+    /**
+     * Writes the vocabularies and the statistics of every word. Sentence
+     * numbers are translated with <code>sentenceMap</code>; cached tokens are
+     * not written.
+     */
+    void write(DataOutputStream out, int[] sentenceMap) throws IOException {
+        out.writeInt(forms.size());
+        for (int id = 0; id < forms.size(); id++) {
+            IndexFile.writeString(out, forms.get(id));
+            out.writeInt(formWords[id]);
+            out.writeByte(formTags[id]);
+        }
+        out.writeInt(words.size());
+        for (int id = 0; id < words.size(); id++) {
+            IndexFile.writeString(out, words.get(id));
+            terms.get(id).write(out, sentenceMap);
+        }
+    }
+
+    static TermStatistics read(ByteBuffer in, Locale locale, Set<String> stopWords) {
+        TermStatistics statistics = new TermStatistics(locale, stopWords, false);
+        int formCount = in.getInt();
+        for (int i = 0; i < formCount; i++) {
+            int id = statistics.forms.add(IndexFile.readString(in));
+            statistics.ensureFormCapacity(id);
+            statistics.formWords[id] = in.getInt();
+            statistics.formTags[id] = in.get();
+        }
+        int wordCount = in.getInt();
+        for (int i = 0; i < wordCount; i++) {
+            statistics.words.add(IndexFile.readString(in));
+            statistics.terms.add(Term.read(in));
+        }
+        return statistics;
+    }
+
+    /**
+     * Segments the chunks of a sentence into words. Words seen for the first
+     * time are added to the list of terms.
+     */
+    SentenceTokens tokenize(String[] chunkArray) {
+        SentenceTokens.Builder builder = new SentenceTokens.Builder();
+        for (int j = 0; j < chunkArray.length; j++) {
+            String chunk = chunkArray[j];
+            if (!chunk.isBlank()) {
+                boolean beginsSentence = j == 0;
+                wordsIterator.setText(chunk);
+                int start = wordsIterator.first();
+                for (int end = wordsIterator.next(); end != BreakIterator.DONE; start = end, end = wordsIterator.next()) {
+                    String word = chunk.substring(start, end);
+                    if (!word.isBlank()) {
+                        int form = formId(word);
+                        byte tags = formTags[form];
+                        if (beginsSentence) {
+                            tags &= ~SentenceTokens.UPPERCASE;
+                            beginsSentence = false;
+                        }
+                        builder.add(formWords[form], form, tags);
+                    }
+                }
+            }
+            builder.endChunk();
+        }
+        return builder.build();
+    }
+
+    private int formId(String form) {
+        int count = forms.size();
+        int id = forms.add(form);
+        if (id == count) {
+            String lower = form.toLowerCase(locale);
+            int word = words.find(lower);
+            if (word == -1) {
+                terms.add(new Term(form));
+                word = words.add(lower);
+            }
+            ensureFormCapacity(id);
+            formWords[id] = word;
+            formTags[id] = SentenceTokens.tags(form, stopWords.contains(lower));
+        }
+        return id;
+    }
+
+    private void ensureFormCapacity(int id) {
+        if (id == formWords.length) {
+            formWords = Arrays.copyOf(formWords, id * 2);
+            formTags = Arrays.copyOf(formTags, id * 2);
+        }
+    }
+}
@@ -28,7 +28,7 @@ public class Token {
     public Token(String token, boolean stopWord, Locale locale, boolean beginsSentence) {
         text = token;
         lower = token.toLowerCase(locale);
-        tag = getType(beginsSentence);
+        tag = getType(token, beginsSentence);
         this.stopWord = stopWord;
     }
 
@@ -48,14 +48,14 @@ public class Token {
         return stopWord;
     }
 
-    private String getType(boolean beginsSentence) {
-        if (isNumber()) {
+    static String getType(String text, boolean beginsSentence) {
+        if (isNumber(text)) {
             return NUMBER;
         }
-        if (isAcronym()) {
+        if (isAcronym(text)) {
             return ACRONYM;
         }
-        if (isUnparsable()) {
+        if (isUnparsable(text)) {
             return UNPARSABLE;
         }
         if (!beginsSentence && Character.isUpperCase(text.charAt(0))) {
@@ -64,7 +64,7 @@ public class Token {
         return PARSABLE;
     }
 
-    private boolean isAcronym() {
+    private static boolean isAcronym(String text) {
         if (text.length() < 2) {
             return false;
         }
@@ -77,7 +77,7 @@ public class Token {
         return true;
     }
 
-    private boolean isUnparsable() {
+    private static boolean isUnparsable(String text) {
         int digits = 0;
         int letters = 0;
         for (int i = 0; i < text.length(); i++) {
@@ -98,7 +98,7 @@ public class Token {
         return false;
     }
 
-    private  boolean isNumber() {
+    private static boolean isNumber(String text) {
         for (int i = 0; i < text.length(); i++) {
             if (!Character.isDigit(text.charAt(i))) {
                 return false;
@@ -108,6 +108,10 @@ public class Token {
     }
 
     public boolean isRelatable() {
+        return isRelatable(tag);
+    }
+
+    static boolean isRelatable(String tag) {
         return tag.equals(ACRONYM) || tag.equals(PARSABLE) || tag.equals(UPPERCASE);
     }
 }
@@ -10,6 +10,7 @@
 
 package com.maxprograms.terms;
 
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -66,6 +67,19 @@ public class Utils {
         return sb.toString();
     }
 
+    /**
+     * Stops a long running extraction when its thread has been interrupted,
+     * for example when the server gives up waiting for the result.
+     * 
+     * @throws InterruptedIOException if the current thread was interrupted;
+     *                                the interrupted status is cleared
+     */
+    static void checkInterrupted() throws InterruptedIOException {
+        if (Thread.interrupted()) {
+            throw new InterruptedIOException(Messages.getString("Utils.1"));
+        }
+    }
+
     public static double median(List<Integer> list) {
         Collections.sort(list);
         int length = list.size();
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.util.Arrays;
+
+/**
+ * Interns strings to consecutive <code>int</code> ids, starting at 0, in the
+ * order they are first seen. Lookups use an open addressing table of ids, so no
+ * boxed values are created.
+ */
+class Vocabulary {
+
+    private static final int EMPTY = -1;
+
+    private String[] values;
+    private int[] hashes;
+    private int[] table;
+    private int size;
+
+    Vocabulary() {
+        values = new String[64];
+        hashes = new int[64];
+        table = new int[128];
+        Arrays.fill(table, EMPTY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    String get(int id) {
+        return values[id];
+    }
+
+    /**
+     * @return the id of the string, or -1 if it has not been added
+     */
+    int find(String value) {
+        int hash = hash(value);
+        int mask = table.length - 1;
+        for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+            int id = table[slot];
+            if (id == EMPTY) {
+                return -1;
+            }
+            if (hashes[id] == hash && values[id].equals(value)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * @return the id of the string, adding it with the next id if it is new
+     */
+    int add(String value) {
+        int hash = hash(value);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != EMPTY) {
+            int id = table[slot];
+            if (hashes[id] == hash && values[id].equals(value)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int id = size++;
+        values[id] = value;
+        hashes[id] = hash;
+        table[slot] = id;
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        Arrays.fill(table, EMPTY);
+        int mask = table.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id;
+        }
+    }
+
+    private static int hash(String value) {
+        int h = value.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streaming reader for XLIFF 2.x documents. Segments are returned one at a
+ * time, so memory use does not depend on the size of the document.
+ */
+public class XliffReader implements AutoCloseable {
+
+    private InputStream stream;
+    private XMLStreamReader reader;
+    private String srcLang;
+    private String trgLang;
+    private int segmentCount;
+    private String fileId;
+    private String unitId;
+    private int unitSegments;
+    private String segmentId;
+
+    public XliffReader(String xliffFile) throws IOException {
+        stream = new BufferedInputStream(new FileInputStream(xliffFile));
+        try {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+            reader = factory.createXMLStreamReader(stream);
+            reader.nextTag();
+            String version = reader.getAttributeValue(null, "version");
+            if (!("xliff".equals(reader.getLocalName()) && version != null && version.startsWith("2."))) {
+                throw new IOException(Messages.getString("TermExtractor.3"));
+            }
+            srcLang = reader.getAttributeValue(null, "srcLang");
+            trgLang = reader.getAttributeValue(null, "trgLang");
+        } catch (XMLStreamException | IOException e) {
+            stream.close();
+            throw e instanceof IOException io ? io : new IOException(e.getMessage(), e);
+        }
+    }
+
+    public String getSrcLang() {
+        return srcLang;
+    }
+
+    public String getTrgLang() {
+        return trgLang;
+    }
+
+    /**
+     * Reads the next segment from the document.
+     *
+     * @return the next segment or null when the end of the document is reached
+     */
+    public Segment nextSegment() throws IOException {
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("segment".equals(name)) {
+                        return readSegment();
+                    }
+                    if ("unit".equals(name)) {
+                        unitId = reader.getAttributeValue(null, "id");
+                        unitSegments = 0;
+                    } else if ("file".equals(name)) {
+                        fileId = reader.getAttributeValue(null, "id");
+                    }
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Identifies the last segment returned by {@link #nextSegment()} within
+     * the document, using the ids of its file and unit and its own id, or its
+     * position in the unit when it has none. Unlike the segment number, the id
+     * does not change when other segments are added or removed.
+     */
+    public String getSegmentId() {
+        return segmentId;
+    }
+
+    private Segment readSegment() throws XMLStreamException {
+        segmentCount++;
+        unitSegments++;
+        String id = reader.getAttributeValue(null, "id");
+        if (unitId == null) {
+            segmentId = fileId + "/#" + segmentCount;
+        } else {
+            segmentId = fileId + '/' + unitId + '/' + (id != null ? id : "#" + unitSegments);
+        }
+        String state = reader.getAttributeValue(null, "state");
+        String source = null;
+        String target = null;
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if (depth == 1 && "source".equals(name) && source == null) {
+                    source = pureText();
+                } else if (depth == 1 && "target".equals(name) && target == null) {
+                    target = pureText();
+                } else {
+                    depth++;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+        return new Segment(segmentCount, state == null ? "" : state, source, target);
+    }
+
+    /**
+     * Collects the text of the current element, including the text of nested
+     * <code>&lt;pc&gt;</code> and <code>&lt;mrk&gt;</code> elements, and leaves
+     * the reader positioned on its end tag.
+     */
+    private String pureText() throws XMLStreamException {
+        StringBuilder sb = new StringBuilder();
+        int depth = 1;
+        int skipped = 0;
+        while (depth > 0) {
+            int event = reader.next();
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    String name = reader.getLocalName();
+                    if (skipped > 0 || !("pc".equals(name) || "mrk".equals(name))) {
+                        skipped++;
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    if (skipped > 0) {
+                        skipped--;
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE:
+                    if (skipped == 0) {
+                        sb.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    }
+                    break;
+                default:
+                    // ignore comments and processing instructions
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (reader != null) {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            stream.close();
+        }
+    }
+}
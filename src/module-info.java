@@ -17,4 +17,7 @@ module terms {
 	requires json;
 	requires transitive xmljava;
 	requires java.logging;
+	requires jdk.jfr;
+	requires jdk.management;
+	requires jdk.httpserver;
 }
\ No newline at end of file
@@ -0,0 +1,5 @@
+#!/bin/sh
+
+CURRENTDIR=$(dirname "$0")
+
+"$CURRENTDIR/bin/java" --module-path "$CURRENTDIR/lib" -m terms/com.maxprograms.terms.TermServer "$@"
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2024 - 2026 Maxprograms.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/org/documents/epl-v10.html
+ *
+ * Contributors: Maxprograms - initial API and implementation
+ *******************************************************************************/
+
+package com.maxprograms.terms;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Candidates with a stop word between a rare word and a number, such as
+ * "Qaba at 5001". Numbers start no candidate and keep their raw score, so the
+ * probability of the bigram around the stop word would exceed 1 without a
+ * bound and the candidate score would become negative.
+ */
+class CandidateScoreTest {
+
+    private static final String[] SENTENCES = { "Revenue grew strongly during the period under review.",
+            "Management believes the outlook remains positive for shareholders.",
+            "The board approved the dividend at its annual meeting." };
+    private static final int SEGMENTS = 300;
+
+    private final ExtractionOptions options = new ExtractionOptions(3, 1, 10.0, false);
+
+    @Test
+    void batchScoresAreNotNegative() throws IOException {
+        TermExtractor extractor = new TermExtractor("en", segments().iterator(), options);
+        assertNotNegative(extractor.getTerms());
+    }
+
+    @Test
+    void incrementalScoresAreNotNegative() throws IOException {
+        IncrementalTermExtractor extractor = new IncrementalTermExtractor("en", options);
+        for (Segment segment : segments()) {
+            extractor.addSegment(String.valueOf(segment.number()), segment.source());
+        }
+        assertNotNegative(extractor.snapshot(Integer.MAX_VALUE));
+    }
+
+    private static void assertNotNegative(List<Term> terms) {
+        assertFalse(terms.stream().noneMatch(term -> term.getText().contains(" at ")));
+        for (Term term : terms) {
+            assertTrue(term.getScore() >= 0, term.getText() + ": " + term.getScore());
+        }
+    }
+
+    private static List<Segment> segments() {
+        List<Segment> segments = new ArrayList<>();
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments.add(new Segment(segments.size() + 1, "final", SENTENCES[i % SENTENCES.length], null));
+            // a word and a number found only once
+            String text = "Visit " + word(i) + " at " + (5000 + i) + " today.";
+            segments.add(new Segment(segments.size() + 1, "final", text, null));
+        }
+        return segments;
+    }
+
+    private static String word(int i) {
+        StringBuilder sb = new StringBuilder("Q");
+        for (int k = 0; k < 3; k++) {
+            sb.append((char) ('a' + i % 26));
+            i /= 26;
+        }
+        return sb.toString();
+    }
+}